@@ -0,0 +1,87 @@
+package pl.polsl.lab.dcieslik.warcaby.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Benchmarks of {@link Board}. Each operation covers every board of the
+ * selected category of {@link Positions}.
+ *
+ * @author Dawid Cieślik
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    /**
+     * The category of the game states.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String category;
+
+    /**
+     * The boards of the game states.
+     */
+    private Board[] boards;
+
+    /**
+     * Creates the boards.
+     */
+    @Setup
+    public void setUp() {
+        Game[] games = Positions.games(category);
+        boards = new Board[games.length];
+        for (int i = 0; i < games.length; i++) {
+            boards[i] = games[i].getBoard();
+        }
+    }
+
+    /**
+     * Reads the ID of every black tile.
+     *
+     * @return the sum of the IDs.
+     */
+    @Benchmark
+    public int get() {
+        int sum = 0;
+        for (Board board : boards) {
+            for (int i = 0; i < 32; i++) {
+                sum += board.get(i);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Writes the ID of every black tile back to it.
+     *
+     * @param bh the sink for the boards.
+     */
+    @Benchmark
+    public void set(Blackhole bh) {
+        for (Board board : boards) {
+            for (int i = 0; i < 32; i++) {
+                board.set(i, board.get(i));
+            }
+            bh.consume(board);
+        }
+    }
+
+    /**
+     * Copies every board.
+     *
+     * @param bh the sink for the copies.
+     */
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.copy());
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package pl.polsl.lab.dcieslik.warcaby.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Benchmarks of {@link Game}. Each operation covers every game state of the
+ * selected category of {@link Positions}.
+ *
+ * @author Dawid Cieślik
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /**
+     * The category of the game states.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String category;
+
+    /**
+     * The games in the game states.
+     */
+    private Game[] games;
+
+    /**
+     * The game states as strings.
+     */
+    private String[] states;
+
+    /**
+     * The first legal move of each game.
+     */
+    private int[] firstMoves;
+
+    /**
+     * The buffer holding the packed state of every game.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * Creates the games and finds a legal move in each of them.
+     */
+    @Setup
+    public void setUp() {
+        games = Positions.games(category);
+        states = Positions.get(category);
+        firstMoves = new int[games.length];
+        MoveList moves = new MoveList();
+        for (int i = 0; i < games.length; i++) {
+            moves.clear();
+            BitboardMoveGenerator.generateLegal(games[i].getExactBoard(), games[i].isP1Turn(),
+                    games[i].getSkipIndex(), moves);
+            firstMoves[i] = moves.get(0);
+        }
+        buffer = ByteBuffer.allocateDirect(games.length * Game.STATE_BYTES);
+    }
+
+    /**
+     * Copies every game, the part of {@link #copyAndMove} that is not the
+     * move itself.
+     *
+     * @param bh the sink for the copies.
+     */
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for (Game game : games) {
+            bh.consume(game.copy());
+        }
+    }
+
+    /**
+     * Copies every game and validates and makes a move on the copy with
+     * {@link Game#move(int, int)}.
+     *
+     * @param bh the sink for the copies.
+     */
+    @Benchmark
+    public void copyAndMove(Blackhole bh) {
+        for (int i = 0; i < games.length; i++) {
+            Game copy = games[i].copy();
+            bh.consume(copy.move(Move.getStart(firstMoves[i]), Move.getEnd(firstMoves[i])));
+            bh.consume(copy);
+        }
+    }
+
+    /**
+     * Makes and takes back a move in every game.
+     *
+     * @return the sum of the game state keys after the moves.
+     */
+    @Benchmark
+    public long makeUnmakeMove() {
+        long sum = 0;
+        for (int i = 0; i < games.length; i++) {
+            games[i].makeMove(firstMoves[i]);
+            sum += games[i].getKey();
+            games[i].unmakeMove();
+        }
+        return sum;
+    }
+
+    /**
+     * Checks if every game is over.
+     *
+     * @return the number of finished games.
+     */
+    @Benchmark
+    public int isGameOver() {
+        int count = 0;
+        for (Game game : games) {
+            if (game.isGameOver()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the state of every game as a string.
+     *
+     * @param bh the sink for the strings.
+     */
+    @Benchmark
+    public void getGameState(Blackhole bh) {
+        for (Game game : games) {
+            bh.consume(game.getGameState());
+        }
+    }
+
+    /**
+     * Parses the state string of every game back into it.
+     *
+     * @param bh the sink for the games.
+     */
+    @Benchmark
+    public void setGameState(Blackhole bh) {
+        for (int i = 0; i < games.length; i++) {
+            games[i].setGameState(states[i]);
+            bh.consume(games[i]);
+        }
+    }
+
+    /**
+     * Writes the packed state of every game into a buffer.
+     *
+     * @param bh the sink for the buffer.
+     */
+    @Benchmark
+    public void writeTo(Blackhole bh) {
+        buffer.clear();
+        for (Game game : games) {
+            game.writeTo(buffer);
+        }
+        bh.consume(buffer);
+    }
+
+    /**
+     * Reads the packed state of every game back from a buffer.
+     *
+     * @param bh the sink for the games.
+     */
+    @Benchmark
+    public void readFrom(Blackhole bh) {
+        buffer.clear();
+        for (Game game : games) {
+            game.writeTo(buffer);
+        }
+        buffer.flip();
+        for (Game game : games) {
+            game.readFrom(buffer);
+            bh.consume(game);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package pl.polsl.lab.dcieslik.warcaby.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Benchmarks of {@link MoveGenerator}, {@link BitboardMoveGenerator} and
+ * {@link MoveLogic}. Each operation covers every game state of the selected
+ * category of {@link Positions}.
+ *
+ * @author Dawid Cieślik
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGeneratorBenchmark {
+
+    /**
+     * The category of the game states.
+     */
+    @Param({"opening", "midgame", "endgame"})
+    public String category;
+
+    /**
+     * The games in the game states.
+     */
+    private Game[] games;
+
+    /**
+     * The start and end index pairs tested with isValidMove, for each game:
+     * every black tile up to two rows away from each piece of the side to
+     * move.
+     */
+    private int[][] pairs;
+
+    /**
+     * The reused move buffer.
+     */
+    private final MoveList moves = new MoveList();
+
+    /**
+     * Creates the games and the index pairs.
+     */
+    @Setup
+    public void setUp() {
+        games = Positions.games(category);
+        pairs = new int[games.length][];
+        for (int g = 0; g < games.length; g++) {
+            int own = games[g].getExactBoard().getPieces(games[g].isP1Turn());
+            int[] list = new int[64 * 32];
+            int n = 0;
+            for (int start = 0; start < 32; start++) {
+                for (int end = 0; end < 32 && (own & (1 << start)) != 0; end++) {
+                    if (Math.abs(start / 4 - end / 4) <= 2) {
+                        list[n++] = start;
+                        list[n++] = end;
+                    }
+                }
+            }
+            pairs[g] = Arrays.copyOf(list, n);
+        }
+    }
+
+    /**
+     * Gets the list of moves of every piece of the side to move.
+     *
+     * @param bh the sink for the lists.
+     */
+    @Benchmark
+    public void getMoves(Blackhole bh) {
+        for (Game game : games) {
+            Board board = game.getExactBoard();
+            int own = board.getPieces(game.isP1Turn());
+            for (int i = 0; i < 32; i++) {
+                if ((own & (1 << i)) != 0) {
+                    bh.consume(MoveGenerator.getMoves(board, i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the list of skips of every piece of the side to move.
+     *
+     * @param bh the sink for the lists.
+     */
+    @Benchmark
+    public void getSkips(Blackhole bh) {
+        for (Game game : games) {
+            Board board = game.getExactBoard();
+            int own = board.getPieces(game.isP1Turn());
+            for (int i = 0; i < 32; i++) {
+                if ((own & (1 << i)) != 0) {
+                    bh.consume(MoveGenerator.getSkips(board, i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates all legal moves of the side to move into a reused buffer.
+     *
+     * @return the total number of moves.
+     */
+    @Benchmark
+    public int generateLegal() {
+        int count = 0;
+        for (Game game : games) {
+            moves.clear();
+            count += BitboardMoveGenerator.generateLegal(game.getExactBoard(), game.isP1Turn(),
+                    game.getSkipIndex(), moves);
+        }
+        return count;
+    }
+
+    /**
+     * Validates moves between every tested index pair.
+     *
+     * @return the number of valid moves.
+     */
+    @Benchmark
+    public int isValidMove() {
+        int count = 0;
+        for (int g = 0; g < games.length; g++) {
+            Board board = games[g].getExactBoard();
+            boolean isP1Turn = games[g].isP1Turn();
+            int skipIndex = games[g].getSkipIndex();
+            int[] list = pairs[g];
+            for (int i = 0; i < list.length; i += 2) {
+                if (MoveLogic.isValidMove(board, isP1Turn, list[i], list[i + 1], skipIndex)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
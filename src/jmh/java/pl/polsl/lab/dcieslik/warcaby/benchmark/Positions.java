@@ -0,0 +1,96 @@
+package pl.polsl.lab.dcieslik.warcaby.benchmark;
+
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * A fixed corpus of game states, in the format of {@link Game#getGameState()},
+ * used by all benchmarks so that results can be compared between runs.
+ *
+ * @author Dawid Cieślik
+ */
+public final class Positions {
+
+    /**
+     * Game states a few moves after the initial state.
+     */
+    private static final String[] OPENINGS = {
+        "222222222020000201012010111111111-1",
+        "222220222022002000001111110111110-1",
+        "222222220220020210100110111111111-1",
+        "222222222002022000011111111011111-1",
+        "222222022202000200101010111111110-1",
+        "222222222012000200011100111111110-1",
+        "222222202002022001001100111111111-1",
+        "222220222222020001001111111101110-1"
+    };
+
+    /**
+     * Game states after 20 to 35 moves, with at least six pieces on each side.
+     */
+    private static final String[] MIDGAMES = {
+        "220200202000200001201000000110111-1",
+        "022020002010000000220000001111100-1",
+        "220221020000000212000000101210110-1",
+        "200220002322000011000001000111110-1",
+        "002220020202000010001021001111001-1",
+        "022221022021100000001000111110100-1",
+        "222200000202000201011000000100111-1",
+        "202222020020200011200100101111001-1"
+    };
+
+    /**
+     * Game states with one to three kings on each side and at most one
+     * checker.
+     */
+    private static final String[] ENDGAMES = {
+        "000000000300000000040000004000340-1",
+        "000004000030400000000000000000001-1",
+        "040000000003030000030000400000001-1",
+        "000013000300000000000004000000000-1",
+        "004000004030002000030000000000001-1",
+        "000300000003004000000400040000300-1",
+        "040000000300000000001000300404031-1",
+        "040000001000040030000000000030031-1"
+    };
+
+    /**
+     * Utility class, no instances.
+     */
+    private Positions() {
+    }
+
+    /**
+     * Gets the game states of a category.
+     *
+     * @param category "opening", "midgame" or "endgame".
+     * @return the game states of the category.
+     */
+    public static String[] get(String category) {
+        switch (category) {
+            case "opening":
+                return OPENINGS.clone();
+            case "midgame":
+                return MIDGAMES.clone();
+            case "endgame":
+                return ENDGAMES.clone();
+            default:
+                throw new IllegalArgumentException("Unknown category: " + category);
+        }
+    }
+
+    /**
+     * Creates games in the game states of a category.
+     *
+     * @param category "opening", "midgame" or "endgame".
+     * @return the games, one per game state.
+     */
+    public static Game[] games(String category) {
+        String[] states = get(category);
+        Game[] games = new Game[states.length];
+        for (int i = 0; i < states.length; i++) {
+            games[i] = new Game(null);
+            games[i].setGameState(states[i]);
+        }
+        return games;
+    }
+}
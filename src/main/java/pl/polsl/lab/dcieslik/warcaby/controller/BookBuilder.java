@@ -0,0 +1,77 @@
+package pl.polsl.lab.dcieslik.warcaby.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import pl.polsl.lab.dcieslik.warcaby.engine.*;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Builds an opening book from self-play games from the command line and
+ * prints the book turns of the first game state.
+ *
+ * @author Dawid Cieślik
+ */
+public class BookBuilder {
+
+    /**
+     * Builds the book.
+     *
+     * <pre>
+     * BookBuilder [-games games] [-plies plies] [-random plies] [-nodes nodes] [-threads threads] [-out file]
+     * </pre>
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        int games = 200, plies = 12, random = 4, threads = Runtime.getRuntime().availableProcessors();
+        long nodes = 20_000;
+        Path file = Paths.get("book.bin");
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "-plies":
+                        plies = Integer.parseInt(args[++i]);
+                        break;
+                    case "-random":
+                        random = Integer.parseInt(args[++i]);
+                        break;
+                    case "-nodes":
+                        nodes = Long.parseLong(args[++i]);
+                        break;
+                    case "-threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-out":
+                        file = Paths.get(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: BookBuilder [-games games] [-plies plies] [-random plies] [-nodes nodes]"
+                    + " [-threads threads] [-out file]");
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+            int records = new OpeningBookBuilder(plies, random, new SearchLimits(0, nodes, 0))
+                    .build(file, games, threads);
+            System.out.println(games + " games, " + records + " records written to " + file + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            OpeningBook book = new OpeningBook(file);
+            Game game = new Game();
+            long turn = book.probe(game);
+            System.out.println("First book turn: " + (turn == Turn.NONE ? "none" : Turn.toString(turn)));
+        } catch (IOException e) {
+            System.err.println("Cannot write the book: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -41,7 +41,7 @@ public class Listener {
 
         @Override
         public void actionPerformed(ActionEvent e) {
-            if (!game.isGameOver()) {
+            if (!game.isGameOver() && !boardWindow.isBotTurn()) {
                 Point m = boardWindow.getMousePosition();
                 if (m != null) {
                     game.handleClick(m.x, m.y);
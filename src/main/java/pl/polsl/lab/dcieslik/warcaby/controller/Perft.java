@@ -0,0 +1,322 @@
+package pl.polsl.lab.dcieslik.warcaby.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Counts the game states reachable in a given number of moves (perft), to
+ * measure the speed of move generation and to check it against the rules in
+ * {@link MoveLogic}. Every single move or skip counts as one ply, so a
+ * multiple skip takes as many plies as it has skips.
+ *
+ * @author Dawid Cieślik
+ */
+public class Perft {
+
+    /**
+     * The game to count the moves of.
+     */
+    private final Game game;
+
+    /**
+     * The flag to count the moves of the last ply without making them.
+     */
+    private final boolean bulk;
+
+    /**
+     * The flag to check every generated move list against
+     * {@link MoveLogic#isValidMove}.
+     */
+    private final boolean verify;
+
+    /**
+     * The move lists of each remaining depth, reused across the whole count.
+     */
+    private MoveList[] lists = new MoveList[0];
+
+    /**
+     * Class constructor.
+     *
+     * @param game the game to count the moves of, changed during the count and
+     * restored afterwards.
+     * @param bulk true to count the moves of the last ply without making them.
+     * @param verify true to check every move list against the rules.
+     */
+    public Perft(Game game, boolean bulk, boolean verify) {
+        this.game = game;
+        this.bulk = bulk;
+        this.verify = verify;
+    }
+
+    /**
+     * Counts the game states reachable in exactly the given number of plies.
+     *
+     * @param depth the number of plies.
+     * @return the number of leaf game states.
+     */
+    public long count(int depth) {
+        if (lists.length <= depth) {
+            lists = new MoveList[depth + 1];
+            for (int i = 0; i <= depth; i++) {
+                lists[i] = new MoveList();
+            }
+        }
+        return perft(depth);
+    }
+
+    /**
+     * Counts the leaf game states below the current one.
+     *
+     * @param depth the number of remaining plies.
+     * @return the number of leaf game states.
+     */
+    private long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = generate(lists[depth]);
+        if (bulk && depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += perft(depth - 1);
+            game.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Generates the legal moves of the current game state.
+     *
+     * @param moves the list to fill.
+     * @return the filled list.
+     */
+    private MoveList generate(MoveList moves) {
+        moves.clear();
+        Board board = game.getExactBoard();
+        BitboardMoveGenerator.generateLegal(board, game.isP1Turn(), game.getSkipIndex(), moves);
+        if (verify) {
+            verify(moves);
+        }
+        return moves;
+    }
+
+    /**
+     * Checks that a move list holds exactly the moves allowed by
+     * {@link MoveLogic#isValidMove}.
+     *
+     * @param moves the generated moves.
+     * @throws IllegalStateException if the lists differ.
+     */
+    private void verify(MoveList moves) {
+        long[] generated = new long[16];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i), pair = Move.getStart(move) * 32 + Move.getEnd(move);
+            if (Move.between(Move.getStart(move), Move.getEnd(move)) != move) {
+                throw new IllegalStateException("Bad packed move " + Move.toString(move)
+                        + " in " + game.getGameState());
+            }
+            generated[pair >>> 6] |= 1L << pair;
+        }
+
+        for (int start = 0; start < 32; start++) {
+            for (int end = 0; end < 32; end++) {
+                int pair = start * 32 + end;
+                boolean valid = MoveLogic.isValidMove(game, start, end);
+                if (valid != ((generated[pair >>> 6] & (1L << pair)) != 0)) {
+                    throw new IllegalStateException((valid ? "Missing move " : "Illegal move ")
+                            + start + "-" + end + " in " + game.getGameState());
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the leaf game states below each legal move of the current state.
+     *
+     * @param depth the number of plies, including the first move.
+     * @return the packed moves and their counts, in generation order.
+     */
+    public List<long[]> divide(int depth) {
+        List<long[]> result = new ArrayList<>();
+        MoveList moves = generate(new MoveList());
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            result.add(new long[]{moves.get(i), count(depth - 1)});
+            game.unmakeMove();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the leaf game states below each legal move of a game state on a
+     * fork-join pool, one task per move.
+     *
+     * @param game the game to count the moves of.
+     * @param depth the number of plies, including the first move.
+     * @param bulk true to count the moves of the last ply without making them.
+     * @param verify true to check every move list against the rules.
+     * @param pool the pool to run the tasks on.
+     * @return the packed moves and their counts, in generation order.
+     */
+    public static List<long[]> divideParallel(Game game, int depth, boolean bulk, boolean verify,
+            ForkJoinPool pool) {
+        MoveList moves = new Perft(game, bulk, verify).generate(new MoveList());
+        List<SubtreeTask> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.add(new SubtreeTask(game.copy(), moves.get(i), depth, bulk, verify));
+        }
+
+        return pool.invoke(new RecursiveTask<List<long[]>>() {
+            @Override
+            protected List<long[]> compute() {
+                invokeAll(tasks);
+                List<long[]> result = new ArrayList<>();
+                for (SubtreeTask task : tasks) {
+                    result.add(new long[]{task.move, task.join()});
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Counts the leaf game states below one move on its own copy of the game.
+     */
+    private static class SubtreeTask extends RecursiveTask<Long> {
+
+        /**
+         * The copy of the game owned by this task.
+         */
+        private final Game game;
+
+        /**
+         * The packed move at the root of the subtree.
+         */
+        private final int move;
+
+        /**
+         * The number of plies, including the root move.
+         */
+        private final int depth;
+
+        /**
+         * The flag to count the moves of the last ply without making them.
+         */
+        private final boolean bulk;
+
+        /**
+         * The flag to check every generated move list against the rules.
+         */
+        private final boolean verify;
+
+        /**
+         * Class constructor.
+         *
+         * @param game the copy of the game owned by this task.
+         * @param move the packed move at the root of the subtree.
+         * @param depth the number of plies, including the root move.
+         * @param bulk true to count the last ply without making the moves.
+         * @param verify true to check every move list against the rules.
+         */
+        SubtreeTask(Game game, int move, int depth, boolean bulk, boolean verify) {
+            this.game = game;
+            this.move = move;
+            this.depth = depth;
+            this.bulk = bulk;
+            this.verify = verify;
+        }
+
+        @Override
+        protected Long compute() {
+            game.makeMove(move);
+            return new Perft(game, bulk, verify).count(depth - 1);
+        }
+    }
+
+    /**
+     * Runs perft from the command line.
+     *
+     * <pre>
+     * Perft depth [-state gameState] [-divide] [-bulk] [-parallel [threads]] [-verify]
+     * </pre>
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        int depth = -1, threads = 0;
+        boolean divide = false, bulk = false, verify = false;
+        String state = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-state":
+                        state = args[++i];
+                        break;
+                    case "-divide":
+                        divide = true;
+                        break;
+                    case "-bulk":
+                        bulk = true;
+                        break;
+                    case "-verify":
+                        verify = true;
+                        break;
+                    case "-parallel":
+                        threads = Runtime.getRuntime().availableProcessors();
+                        if (i + 1 < args.length && args[i + 1].matches("\\d+")) {
+                            threads = Integer.parseInt(args[++i]);
+                        }
+                        break;
+                    default:
+                        depth = Integer.parseInt(args[i]);
+                        break;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            depth = -1;
+        }
+
+        if (depth < 1) {
+            System.err.println("Usage: Perft depth [-state gameState] [-divide] [-bulk]"
+                    + " [-parallel [threads]] [-verify]");
+            System.exit(1);
+        }
+
+        Game game = new Game();
+        if (state != null) {
+            game.setGameState(state);
+        }
+
+        long start = System.nanoTime();
+        List<long[]> counts;
+        if (threads > 0) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            counts = divideParallel(game, depth, bulk, verify, pool);
+            pool.shutdown();
+        } else if (divide || verify) {
+            counts = new Perft(game, bulk, verify).divide(depth);
+        } else {
+            counts = new ArrayList<>();
+            counts.add(new long[]{Move.NONE, new Perft(game, bulk, false).count(depth)});
+        }
+        long time = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (long[] count : counts) {
+            if (divide) {
+                System.out.println(Move.toString((int) count[0]) + ": " + count[1]);
+            }
+            nodes += count[1];
+        }
+        System.out.println("Depth " + depth + ": " + nodes + " nodes in " + (time / 1_000_000)
+                + " ms (" + (long) (nodes / Math.max(time / 1e9, 1e-9)) + " nodes/s)");
+    }
+}
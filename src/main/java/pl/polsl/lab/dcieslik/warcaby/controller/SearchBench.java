@@ -0,0 +1,225 @@
+package pl.polsl.lab.dcieslik.warcaby.controller;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import pl.polsl.lab.dcieslik.warcaby.engine.*;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Runs the engine search on a game state from the command line and prints
+ * every completed iteration, with the number of nodes per second. With
+ * -speedup it instead measures the time to reach the depth with 1, 2, 4, 8
+ * and 16 threads of a {@link ParallelSearch}; with -ordering it compares the
+ * nodes needed to reach the depth with and without move ordering; with -mcts
+ * it runs a {@link MonteCarloSearch} with a fixed number of playouts and
+ * prints the playouts per second; with -deadline it plays a game against
+ * itself with a {@link DeadlineSearch} and prints the percentiles of the time
+ * taken by each turn.
+ *
+ * @author Dawid Cieślik
+ */
+public class SearchBench {
+
+    /**
+     * Runs the search from the command line.
+     *
+     * <pre>
+     * SearchBench [-state gameState] [-depth depth] [-nodes nodes] [-time millis] [-hash megabytes]
+     *             [-threads threads] [-speedup] [-ordering] [-noquiescence] [-tablebase directory]
+     *             [-book file] [-mcts playouts] [-deadline millis]
+     * </pre>
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        int depth = 0, hash = Search.DEFAULT_TABLE_MEGABYTES, threads = 1;
+        boolean speedup = false, ordering = false, quiescence = true;
+        long nodes = 0, millis = 0, deadline = 0;
+        int playouts = 0;
+        String state = null, tablebase = null, book = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-state":
+                        state = args[++i];
+                        break;
+                    case "-depth":
+                        depth = Integer.parseInt(args[++i]);
+                        break;
+                    case "-nodes":
+                        nodes = Long.parseLong(args[++i]);
+                        break;
+                    case "-time":
+                        millis = Long.parseLong(args[++i]);
+                        break;
+                    case "-hash":
+                        hash = Integer.parseInt(args[++i]);
+                        break;
+                    case "-threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-speedup":
+                        speedup = true;
+                        break;
+                    case "-ordering":
+                        ordering = true;
+                        break;
+                    case "-noquiescence":
+                        quiescence = false;
+                        break;
+                    case "-tablebase":
+                        tablebase = args[++i];
+                        break;
+                    case "-book":
+                        book = args[++i];
+                        break;
+                    case "-mcts":
+                        playouts = Integer.parseInt(args[++i]);
+                        break;
+                    case "-deadline":
+                        deadline = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: SearchBench [-state gameState] [-depth depth] [-nodes nodes]"
+                    + " [-time millis] [-hash megabytes] [-threads threads] [-speedup]"
+                    + " [-ordering] [-noquiescence] [-tablebase directory] [-book file]"
+                    + " [-mcts playouts] [-deadline millis]");
+            System.exit(1);
+        }
+        if (depth <= 0 && nodes <= 0 && millis <= 0) {
+            depth = 10;
+        }
+
+        Game game = new Game();
+        if (state != null) {
+            game.setGameState(state);
+        }
+
+        if (book != null) {
+            try {
+                long turn = new OpeningBook(Paths.get(book)).probe(game);
+                if (turn != Turn.NONE) {
+                    System.out.println("Book turn " + Turn.toString(turn));
+                    return;
+                }
+            } catch (IOException e) {
+                System.err.println("Cannot read the book: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        if (playouts > 0) {
+            MonteCarloSearch search = new MonteCarloSearch(threads);
+            SearchResult result = search.search(game, playouts);
+            search.shutdown();
+            System.out.println("Best turn " + Turn.toString(result.getBestTurn()) + ", " + result.getScore()
+                    + "% of points, " + playouts + " playouts in " + (result.getNanos() / 1_000_000) + " ms ("
+                    + result.getNodesPerSecond() + " playouts/s), " + search.getTreeSize() + " tree nodes");
+            return;
+        }
+
+        if (deadline > 0) {
+            deadline(game, deadline, Math.max(1, hash));
+            return;
+        }
+        if (ordering) {
+            ordering(game, new SearchLimits(depth, nodes, millis), Math.max(1, hash));
+            return;
+        }
+        if (speedup) {
+            speedup(game, new SearchLimits(depth, nodes, millis), Math.max(1, hash));
+            return;
+        }
+
+        TranspositionTable tt = hash > 0 ? new TranspositionTable(hash) : null;
+        Tablebase tb = tablebase != null ? new Tablebase(Paths.get(tablebase)) : null;
+        SearchResult result;
+        if (threads > 1 && tt != null) {
+            ParallelSearch search = new ParallelSearch(threads, tt);
+            search.setTablebase(tb);
+            search.setListener(System.out::println);
+            result = search.search(game, new SearchLimits(depth, nodes, millis));
+            search.shutdown();
+        } else {
+            Search search = new Search(new Evaluator(), tt);
+            search.setQuiescence(quiescence);
+            search.setTablebase(tb);
+            search.setListener(System.out::println);
+            result = search.search(game, new SearchLimits(depth, nodes, millis));
+        }
+        System.out.println("Best turn " + Turn.toString(result.getBestTurn()) + ", score "
+                + result.getScore() + ", " + result.getNodes() + " nodes in "
+                + (result.getNanos() / 1_000_000) + " ms (" + result.getNodesPerSecond() + " nodes/s)");
+        if (tt != null) {
+            System.out.println(tt);
+        }
+    }
+
+    /**
+     * Measures the time to complete a search with 1, 2, 4, 8 and 16 threads,
+     * each with a new table, and prints the speedup over one thread. A first
+     * search, not measured, warms up the JIT compiler.
+     *
+     * @param game the game to search.
+     * @param limits the budget of each search.
+     * @param hash the size of the table in megabytes.
+     */
+    private static void speedup(Game game, SearchLimits limits, int hash) {
+        new ParallelSearch(1, hash).search(game, limits);
+        long single = 0;
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            ParallelSearch search = new ParallelSearch(threads, hash);
+            SearchResult result = search.search(game, limits);
+            search.shutdown();
+            if (threads == 1) {
+                single = result.getNanos();
+            }
+            System.out.printf("%2d threads: depth %d in %d ms, %d nodes (%d nodes/s), speedup %.2f%n",
+                    threads, result.getDepth(), result.getNanos() / 1_000_000, result.getNodes(),
+                    result.getNodesPerSecond(), (double) single / result.getNanos());
+        }
+    }
+
+    /**
+     * Searches with and without move ordering, each with a new table, and
+     * prints the number of nodes and the time of both.
+     *
+     * @param game the game to search.
+     * @param limits the budget of each search.
+     * @param hash the size of the table in megabytes.
+     */
+    private static void ordering(Game game, SearchLimits limits, int hash) {
+        for (boolean on : new boolean[]{false, true}) {
+            Search search = new Search(new Evaluator(), new TranspositionTable(hash));
+            search.setOrdering(on);
+            SearchResult result = search.search(game, limits);
+            System.out.println((on ? "Ordered:   " : "Unordered: ") + "depth " + result.getDepth() + ", "
+                    + result.getNodes() + " nodes in " + (result.getNanos() / 1_000_000) + " ms");
+        }
+    }
+
+    /**
+     * Plays a game against itself, each turn searched with a deadline, and
+     * prints the depth reached on each turn and the percentiles of the time
+     * taken. The game ends after {@link OpeningBookBuilder#MAX_PLIES} turns
+     * at the latest.
+     *
+     * @param game the game to play, changed by the turns.
+     * @param millis the budget of each turn in milliseconds.
+     * @param hash the size of the table in megabytes.
+     */
+    private static void deadline(Game game, long millis, int hash) {
+        DeadlineSearch search = new DeadlineSearch(new Search(new Evaluator(), new TranspositionTable(hash)));
+        for (int ply = 0; ply < OpeningBookBuilder.MAX_PLIES && !game.isGameOver(); ply++) {
+            SearchResult result = search.search(game, millis);
+            System.out.println((ply + 1) + ". " + Turn.toString(result.getBestTurn()) + " depth "
+                    + result.getDepth() + " in " + result.getNanos() / 1_000 + " us");
+            game.makeTurn(result.getBestTurn());
+        }
+        System.out.println(search.getLatencies() + ", " + search.getLateCount() + " late");
+    }
+}
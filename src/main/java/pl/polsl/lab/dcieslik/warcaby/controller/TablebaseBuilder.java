@@ -0,0 +1,71 @@
+package pl.polsl.lab.dcieslik.warcaby.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import pl.polsl.lab.dcieslik.warcaby.engine.*;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Writes the endgame tables from the command line and looks up game states
+ * in them. Tables that already have a file are not written again, so an
+ * interrupted run can be continued.
+ *
+ * @author Dawid Cieślik
+ */
+public class TablebaseBuilder {
+
+    /**
+     * Writes the tables, then looks up the game state if one is given.
+     *
+     * <pre>
+     * TablebaseBuilder [-pieces pieces] [-dir directory] [-state gameState]
+     * </pre>
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        int pieces = 4;
+        Path directory = Paths.get("tablebase");
+        String state = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-pieces":
+                        pieces = Integer.parseInt(args[++i]);
+                        break;
+                    case "-dir":
+                        directory = Paths.get(args[++i]);
+                        break;
+                    case "-state":
+                        state = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: TablebaseBuilder [-pieces pieces] [-dir directory] [-state gameState]");
+            System.exit(1);
+        }
+
+        try {
+            long start = System.nanoTime();
+            new TablebaseGenerator(directory, pieces).generate(System.out::println);
+            System.out.println("Tables up to " + pieces + " pieces in " + directory + " ready in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (IOException e) {
+            System.err.println("Cannot write the tables: " + e.getMessage());
+            System.exit(1);
+        }
+
+        if (state != null) {
+            Game game = new Game();
+            game.setGameState(state);
+            int value = new Tablebase(directory).probe(game);
+            System.out.println(value == Tablebase.UNKNOWN ? "Not in the tables"
+                    : value == Tablebase.DRAW ? "Draw"
+                    : (Tablebase.isWin(value) ? "Win" : "Loss") + " in " + Tablebase.getDistance(value) + " turns");
+        }
+    }
+}
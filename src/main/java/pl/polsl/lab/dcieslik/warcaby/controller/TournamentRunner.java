@@ -0,0 +1,137 @@
+package pl.polsl.lab.dcieslik.warcaby.controller;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+import pl.polsl.lab.dcieslik.warcaby.engine.*;
+
+/**
+ * Plays a {@link Tournament} between bots from the command line, writes the
+ * games to a PDN file and prints the result of each pairing with the Elo
+ * difference, the games per second and the mean length of the games.
+ * <p>
+ * A bot is given as a kind and a budget: "depth:8" and "nodes:20000" search
+ * each turn to a depth or a number of nodes, "time:50" searches each turn for
+ * 50 milliseconds, "mcts:2000" runs 2000 Monte Carlo playouts per turn and
+ * "random" plays random turns. With an opening book, every bot plays the book
+ * turn of the game states in the book.
+ *
+ * @author Dawid Cieślik
+ */
+public class TournamentRunner {
+
+    /**
+     * Runs the tournament.
+     *
+     * <pre>
+     * TournamentRunner -bot bot -bot bot [-bot bot ...] [-games games] [-random plies] [-threads threads]
+     *                  [-hash megabytes] [-seed seed] [-book file] [-out file]
+     * </pre>
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        int games = 100, random = 4, hash = 4, threads = Runtime.getRuntime().availableProcessors();
+        long seed = 0;
+        Path file = Paths.get("tournament.pdn"), bookFile = null;
+        List<String> bots = new ArrayList<>();
+        Tournament tournament = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-bot":
+                        bots.add(args[++i]);
+                        break;
+                    case "-games":
+                        games = Integer.parseInt(args[++i]);
+                        break;
+                    case "-random":
+                        random = Integer.parseInt(args[++i]);
+                        break;
+                    case "-threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-hash":
+                        hash = Integer.parseInt(args[++i]);
+                        break;
+                    case "-seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "-book":
+                        bookFile = Paths.get(args[++i]);
+                        break;
+                    case "-out":
+                        file = Paths.get(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (bots.size() < 2) {
+                throw new IllegalArgumentException("at least two bots");
+            }
+            OpeningBook book = bookFile == null ? null : new OpeningBook(bookFile);
+            tournament = new Tournament(random);
+            tournament.setSeed(seed);
+            for (String bot : bots) {
+                LongFunction<Bot> factory = factory(bot, hash);
+                tournament.addBot(bot, book == null ? factory : botSeed -> Bot.withBook(factory.apply(botSeed), book));
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            System.err.println("Usage: TournamentRunner -bot bot -bot bot [-bot bot ...] [-games games]"
+                    + " [-random plies] [-threads threads] [-hash megabytes] [-seed seed] [-book file]"
+                    + " [-out file]");
+            System.err.println("Bots: depth:N, nodes:N, time:millis, mcts:playouts, random");
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Cannot read the book: " + e.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            List<MatchResult> results = tournament.run(file, games, threads);
+            for (MatchResult result : results) {
+                System.out.println(result);
+            }
+            System.out.printf("%d games written to %s, %.1f games/s, %.1f turns per game%n",
+                    tournament.getGames(), file, tournament.getGamesPerSecond(), tournament.getAveragePlies());
+        } catch (IOException e) {
+            System.err.println("Cannot write the games: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates the factory of a bot from its description.
+     *
+     * @param bot the description, for example "nodes:20000".
+     * @param hash the size of the table of a searching bot in megabytes.
+     * @return the factory, taking the seed of the bot.
+     * @throws IllegalArgumentException if the description is not valid.
+     */
+    private static LongFunction<Bot> factory(String bot, int hash) {
+        String[] parts = bot.split(":", 2);
+        if (parts[0].equals("random")) {
+            return Bot::random;
+        }
+        if (parts.length < 2) {
+            throw new IllegalArgumentException(bot);
+        }
+        long budget = Long.parseLong(parts[1]);
+        switch (parts[0]) {
+            case "depth":
+                return seed -> Bot.search(SearchLimits.depth((int) budget), hash);
+            case "nodes":
+                return seed -> Bot.search(new SearchLimits(0, budget, 0), hash);
+            case "time":
+                return seed -> Bot.deadline(budget, hash);
+            case "mcts":
+                return seed -> Bot.monteCarlo((int) budget);
+            default:
+                throw new IllegalArgumentException(bot);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.SplittableRandom;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * A computer player: anything that chooses the turn of a game state. A bot
+ * plays one game at a time on one thread, so that it can keep state, such as
+ * a transposition table, from one turn to the next.
+ *
+ * @author Dawid Cieślik
+ */
+public interface Bot {
+
+    /**
+     * Chooses a turn.
+     *
+     * @param game the game, left unchanged; the side to move has a legal
+     * turn.
+     * @return the packed turn (see {@link Turn}).
+     */
+    long play(Game game);
+
+    /**
+     * Prepares for a new game, for example by clearing the table of a search.
+     */
+    default void newGame() {
+    }
+
+    /**
+     * Creates a bot searching each turn within limits.
+     *
+     * @param limits the budget of each search.
+     * @param tableMegabytes the size of the table in megabytes.
+     * @return the bot.
+     */
+    static Bot search(SearchLimits limits, int tableMegabytes) {
+        Search search = new Search(new Evaluator(), new TranspositionTable(tableMegabytes));
+        return new Bot() {
+            @Override
+            public long play(Game game) {
+                return search.search(game, limits).getBestTurn();
+            }
+
+            @Override
+            public void newGame() {
+                search.getTable().clear();
+            }
+        };
+    }
+
+    /**
+     * Creates a bot searching each turn until a deadline (see
+     * {@link DeadlineSearch}).
+     *
+     * @param millis the budget of each turn in milliseconds.
+     * @param tableMegabytes the size of the table in megabytes.
+     * @return the bot.
+     */
+    static Bot deadline(long millis, int tableMegabytes) {
+        DeadlineSearch search = new DeadlineSearch(new Search(new Evaluator(),
+                new TranspositionTable(tableMegabytes)));
+        return new Bot() {
+            @Override
+            public long play(Game game) {
+                return search.search(game, millis).getBestTurn();
+            }
+
+            @Override
+            public void newGame() {
+                search.getSearch().getTable().clear();
+            }
+        };
+    }
+
+    /**
+     * Creates a bot playing the book turn of the game states in an opening
+     * book and letting another bot choose the turns of the others.
+     *
+     * @param bot the bot playing outside the book.
+     * @param book the book, which can be shared by the bots of all threads.
+     * @return the bot.
+     */
+    static Bot withBook(Bot bot, OpeningBook book) {
+        return new Bot() {
+            @Override
+            public long play(Game game) {
+                long turn = book.probe(game);
+                return turn != Turn.NONE ? turn : bot.play(game);
+            }
+
+            @Override
+            public void newGame() {
+                bot.newGame();
+            }
+        };
+    }
+
+    /**
+     * Creates a bot running a {@link MonteCarloSearch} with the playouts on
+     * the thread of the bot, so that it starts no threads of its own.
+     *
+     * @param playouts the number of playouts of each turn.
+     * @return the bot.
+     */
+    static Bot monteCarlo(int playouts) {
+        MonteCarloSearch search = new MonteCarloSearch(null, MonteCarloSearch.DEFAULT_BATCH);
+        return game -> search.search(game, playouts).getBestTurn();
+    }
+
+    /**
+     * Creates a bot playing random legal turns. Bots created with the same
+     * seed play the same turns, so a {@link Tournament} gives the bots of
+     * each thread a seed of their own.
+     *
+     * @param seed the seed of the turns.
+     * @return the bot.
+     */
+    static Bot random(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        TurnList turns = new TurnList();
+        return game -> {
+            turns.clear();
+            BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+            return turns.get(random.nextInt(turns.size()));
+        };
+    }
+}
@@ -0,0 +1,362 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.function.Consumer;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Finds turns within a strict latency budget, whatever the game state. Each
+ * search gets a deadline and returns by then with the turn of its deepest
+ * completed iteration; if not even the first iteration completes, it returns
+ * the first legal turn. The search reads the clock every few hundred nodes
+ * and stops a little before the deadline, leaving {@link #MARGIN_NANOS} for
+ * returning the result.
+ * <p>
+ * An iteration that is stopped is lost, so a new iteration is not started
+ * once half of the time is used: the next one would take at least as long as
+ * all the previous ones together and could not complete.
+ * <p>
+ * The time from the call to the return of every search is recorded in a
+ * {@link LatencyHistogram}, whose percentiles show how well the budget is
+ * kept. The table is kept from one search to the next, so the searches of a
+ * game reuse the work of the previous turns. The searches run one at a time;
+ * the histogram and {@link #stop()} can be used from any thread.
+ * <p>
+ * While the opponent thinks, the search can ponder: search the game state
+ * after the reply it expects, with no deadline (see {@link Ponder}). If the
+ * opponent plays that reply, the pondering search gets its deadline and goes
+ * on, so its answer comes sooner or from a deeper iteration; if not, it is
+ * cancelled and the table it filled still serves the next search.
+ * <p>
+ * With an {@link OpeningBook}, a game state found in the book gets the book
+ * turn at once, without a search.
+ *
+ * @author Dawid Cieślik
+ */
+public class DeadlineSearch {
+
+    /**
+     * The time left before the deadline for returning the result, in
+     * nanoseconds.
+     */
+    public static final long MARGIN_NANOS = 1_000_000;
+
+    /**
+     * The search.
+     */
+    private final Search search;
+
+    /**
+     * The time taken by each search.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * The number of searches that returned after their deadline.
+     */
+    private volatile long late;
+
+    /**
+     * The time at which the current search started.
+     */
+    private volatile long startTime;
+
+    /**
+     * The deadline of the current search, without the margin.
+     */
+    private volatile long stopTime;
+
+    /**
+     * The flag set if the current search has a deadline, unset while
+     * pondering before a hit.
+     */
+    private volatile boolean timed;
+
+    /**
+     * The receiver of the result of each completed iteration, or null.
+     */
+    private volatile Consumer<SearchResult> listener;
+
+    /**
+     * The book of the opening turns, or null.
+     */
+    private volatile OpeningBook book;
+
+    /**
+     * Class constructor.
+     */
+    public DeadlineSearch() {
+        this(new Search());
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param search the search, which must not be used elsewhere. Its listener
+     * is replaced; see {@link #setListener(Consumer)} instead.
+     */
+    public DeadlineSearch(Search search) {
+        this.search = search;
+        this.search.setListener(this::iterationDone);
+    }
+
+    /**
+     * Sets the receiver of the result of each completed iteration, for
+     * example to show an analysis as it deepens. It is called on the
+     * searching thread.
+     *
+     * @param listener the receiver, or null.
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the book of the opening turns, played instead of searching the
+     * game states it holds.
+     *
+     * @param book the book, or null to always search.
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Searches a game state for a number of milliseconds from now.
+     *
+     * @param game the game to search, left unchanged.
+     * @param millis the budget in milliseconds.
+     * @return the result of the deepest completed iteration.
+     */
+    public SearchResult search(Game game, long millis) {
+        return searchUntil(game, System.nanoTime() + millis * 1_000_000);
+    }
+
+    /**
+     * Searches a game state until a deadline.
+     *
+     * @param game the game to search, left unchanged.
+     * @param deadline the time by which the search returns, as given by
+     * {@link System#nanoTime()}.
+     * @return the result of the deepest completed iteration. If no iteration
+     * completed, the first legal turn with a score of 0; if there are no legal
+     * turns, {@link Turn#NONE} with a losing score. If the game state is in
+     * the book, the book turn with a depth of 0.
+     */
+    public SearchResult searchUntil(Game game, long deadline) {
+        startTime = System.nanoTime();
+        SearchResult result = probeBook(game, startTime);
+        if (result == null) {
+            stopTime = deadline - MARGIN_NANOS;
+            timed = true;
+            search.setDeadline(stopTime);
+            result = search.search(game, new SearchLimits(0, 0, 0));
+        }
+        record(startTime, deadline);
+        return result;
+    }
+
+    /**
+     * Looks up the turn of a game state in the book. The principal variation
+     * of the result holds the book reply to the turn as well, if there is
+     * one, so that it can be pondered.
+     *
+     * @param game the game, left unchanged.
+     * @param start the time at which the search started.
+     * @return the book turn with a score and a depth of 0, or null if there
+     * is no book or the game state is not in it.
+     */
+    private SearchResult probeBook(Game game, long start) {
+        OpeningBook source = book;
+        long turn = source == null ? Turn.NONE : source.probe(game);
+        if (turn == Turn.NONE) {
+            return null;
+        }
+        Game next = game.copy();
+        next.makeTurn(turn);
+        long reply = next.isGameOver() ? Turn.NONE : source.probe(next);
+        long[] pv = reply == Turn.NONE ? new long[]{turn} : new long[]{turn, reply};
+        return new SearchResult(turn, 0, 0, pv, 0, System.nanoTime() - start);
+    }
+
+    /**
+     * Creates a pondering search, to be run on the searching thread while
+     * the opponent thinks.
+     *
+     * @return the pondering search.
+     */
+    public Ponder newPonder() {
+        return new Ponder();
+    }
+
+    /**
+     * Records the time taken by a search that just returned.
+     *
+     * @param start the time from which the search is measured.
+     * @param deadline the deadline given to the search.
+     */
+    private void record(long start, long deadline) {
+        long end = System.nanoTime();
+        latencies.record(end - start);
+        if (end - deadline > 0) {
+            late++;
+        }
+    }
+
+    /**
+     * Passes the result of an iteration to the listener and stops the search
+     * of the next iteration when it cannot complete before the deadline.
+     * Called on the searching thread after each completed iteration.
+     *
+     * @param result the result of the iteration.
+     */
+    private void iterationDone(SearchResult result) {
+        Consumer<SearchResult> receiver = listener;
+        if (receiver != null) {
+            receiver.accept(result);
+        }
+        long now = System.nanoTime();
+        if (timed && 2 * (now - startTime) > stopTime - startTime) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Stops the running search, which returns its deepest completed
+     * iteration at once. Can be called from any thread.
+     */
+    public void stop() {
+        search.stop();
+    }
+
+    /**
+     * Gets the time taken by each search so far.
+     *
+     * @return the histogram of the times, shared with this search.
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Gets the number of searches that returned after their deadline.
+     *
+     * @return the number of searches.
+     */
+    public long getLateCount() {
+        return late;
+    }
+
+    /**
+     * Gets the search, for example to set its tablebase.
+     *
+     * @return the search.
+     */
+    public Search getSearch() {
+        return search;
+    }
+
+    /**
+     * A search of the game state after the expected reply of the opponent,
+     * made while the opponent thinks. It runs without a deadline until
+     * {@link #hit(long)} gives it one or {@link #cancel()} stops it. Both can
+     * be called from any thread at any time, also before the search starts
+     * or after it ended, and are never lost. The same makes it fit for an
+     * analysis that must be dropped as soon as the game state changes.
+     */
+    public class Ponder {
+
+        /**
+         * The flag set if the search is running.
+         */
+        private boolean running;
+
+        /**
+         * The flag set if the search was cancelled.
+         */
+        private boolean cancelled;
+
+        /**
+         * The flag set if the opponent played the expected reply.
+         */
+        private boolean hit;
+
+        /**
+         * The time of the hit.
+         */
+        private long hitTime;
+
+        /**
+         * The deadline given by the hit.
+         */
+        private long deadline;
+
+        /**
+         * Searches a game state until the search is cancelled or, after a
+         * hit, until the deadline. Called on the searching thread, once.
+         *
+         * @param game the game state after the expected reply, left
+         * unchanged.
+         * @return the result of the deepest completed iteration or the book
+         * turn, or null if the search was cancelled before it started.
+         */
+        public SearchResult run(Game game) {
+            synchronized (this) {
+                if (cancelled) {
+                    return null;
+                }
+                running = true;
+                startTime = System.nanoTime();
+                timed = hit;
+                stopTime = deadline - MARGIN_NANOS;
+                if (hit) {
+                    search.setDeadline(stopTime);
+                } else {
+                    search.clearDeadline();
+                }
+                search.clearStop();
+            }
+
+            SearchResult result = probeBook(game, System.nanoTime());
+            if (result == null) {
+                if (search.getTable() != null) {
+                    search.getTable().newSearch();
+                }
+                result = search.search(game, new SearchLimits(0, 0, 0), 1, DeadlineSearch.this::iterationDone);
+            }
+            synchronized (this) {
+                running = false;
+                if (hit) {
+                    record(hitTime, deadline);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Tells the search that the opponent played the expected reply, so
+         * that it returns within a budget from now.
+         *
+         * @param millis the budget in milliseconds.
+         */
+        public synchronized void hit(long millis) {
+            hit = true;
+            hitTime = System.nanoTime();
+            deadline = hitTime + millis * 1_000_000;
+            if (running) {
+                stopTime = deadline - MARGIN_NANOS;
+                timed = true;
+                search.setDeadline(stopTime);
+            }
+        }
+
+        /**
+         * Stops the search, or keeps it from starting.
+         */
+        public synchronized void cancel() {
+            cancelled = true;
+            if (running) {
+                search.stop();
+            }
+        }
+    }
+}
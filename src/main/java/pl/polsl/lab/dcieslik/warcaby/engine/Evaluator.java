@@ -0,0 +1,196 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.Arrays;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Scores game states for the search, from the point of view of the side to
+ * move. The score adds up material and piece-square tables over the 32 black
+ * tiles, which reward advanced checkers and central kings, plus the checkers
+ * guarding the back row and the number of checkers that can move.
+ * <p>
+ * The material and piece-square part is kept up to date by
+ * {@link #make(Board, long)} and {@link #unmake()} around every turn of the
+ * search, so a leaf costs a few mask operations instead of a scan of the
+ * board. An evaluator therefore belongs to a single search.
+ *
+ * @author Dawid Cieślik
+ */
+public class Evaluator {
+
+    /**
+     * The value of a checker.
+     */
+    public static final int CHECKER = 100;
+
+    /**
+     * The value of a king.
+     */
+    public static final int KING = 130;
+
+    /**
+     * The bonus of a checker on its own back row.
+     */
+    public static final int BACK_RANK = 6;
+
+    /**
+     * The bonus of each checker or king that can move.
+     */
+    public static final int MOBILITY = 2;
+
+    /**
+     * The bonus of a white checker on each row, from row 0 to row 7.
+     */
+    private static final int[] ADVANCE = {0, 24, 16, 10, 6, 3, 1, 0};
+
+    /**
+     * The bonus of a checker on one of the 8 central tiles.
+     */
+    private static final int CENTRE = 4;
+
+    /**
+     * The bonus of a king on one of the 8 central tiles, and the penalty of a
+     * king on the edge of the board.
+     */
+    private static final int KING_CENTRE = 8;
+
+    /**
+     * The back row of white, row 7.
+     */
+    private static final int WHITE_BACK = 0xF0000000;
+
+    /**
+     * The back row of black, row 0.
+     */
+    private static final int BLACK_BACK = 0x0000000F;
+
+    /**
+     * The material and piece-square value of each ID on each black tile, at
+     * [id * 32 + index], positive for white and negative for black.
+     */
+    private static final int[] PST = new int[5 * 32];
+
+    static {
+        for (int i = 0; i < 32; i++) {
+            int x = Board.getX(i), y = Board.getY(i);
+            boolean centre = x >= 2 && x <= 5 && y >= 3 && y <= 4;
+            boolean edge = x == 0 || x == 7 || y == 0 || y == 7;
+            int man = CHECKER + ADVANCE[y] + (centre ? CENTRE : 0);
+            int king = KING + (centre ? KING_CENTRE : edge ? -KING_CENTRE : 0);
+            PST[Board.IDs.WHITE_CHECKER.getID() * 32 + i] = man;
+            PST[Board.IDs.BLACK_CHECKER.getID() * 32 + 31 - i] = -man;
+            PST[Board.IDs.WHITE_KING.getID() * 32 + i] = king;
+            PST[Board.IDs.BLACK_KING.getID() * 32 + 31 - i] = -king;
+        }
+    }
+
+    /**
+     * The material and piece-square value of each game state on the path
+     * from the root, for white.
+     */
+    private int[] stack = new int[Search.MAX_PLY + 1];
+
+    /**
+     * The number of values on the stack, the last one is the current value.
+     */
+    private int size;
+
+    /**
+     * Sets the game state the following turns start from.
+     *
+     * @param game the game at the root of the search.
+     */
+    public void reset(Game game) {
+        this.stack[0] = material(game.getExactBoard());
+        this.size = 1;
+    }
+
+    /**
+     * Updates the material and piece-square value for a turn about to be
+     * made.
+     *
+     * @param board the board before the turn.
+     * @param turn the packed turn (see {@link Turn}).
+     */
+    public void make(Board board, long turn) {
+        int start = Turn.getStart(turn), end = Turn.getEnd(turn);
+        int id = board.get(start), newId = id;
+        if (id == Board.IDs.WHITE_CHECKER.getID() && (Turn.isPromoted(turn) || end < 4)) {
+            newId = Board.IDs.WHITE_KING.getID();
+        } else if (id == Board.IDs.BLACK_CHECKER.getID() && (Turn.isPromoted(turn) || end > 27)) {
+            newId = Board.IDs.BLACK_KING.getID();
+        }
+
+        int value = stack[size - 1] - PST[id * 32 + start] + PST[newId * 32 + end];
+        for (int captured = Turn.getCaptured(turn); captured != 0; captured &= captured - 1) {
+            int i = Integer.numberOfTrailingZeros(captured);
+            value -= PST[board.get(i) * 32 + i];
+        }
+
+        if (size == stack.length) {
+            stack = Arrays.copyOf(stack, size * 2);
+        }
+        stack[size++] = value;
+    }
+
+    /**
+     * Takes back the last turn passed to {@link #make(Board, long)}.
+     */
+    public void unmake() {
+        size--;
+    }
+
+    /**
+     * Scores the current game state, using the material and piece-square
+     * value kept by {@link #make(Board, long)}.
+     *
+     * @param game the game to score, in the state reached by the turns made.
+     * @return the score, positive if the side to move is better.
+     */
+    public int evaluate(Game game) {
+        int score = stack[size - 1] + positional(game.getExactBoard());
+        return game.isP1Turn() ? score : -score;
+    }
+
+    /**
+     * Scores a game state without the kept value, computing everything from
+     * the board.
+     *
+     * @param game the game to score.
+     * @return the score, positive if the side to move is better.
+     */
+    public int evaluateFromScratch(Game game) {
+        int score = material(game.getExactBoard()) + positional(game.getExactBoard());
+        return game.isP1Turn() ? score : -score;
+    }
+
+    /**
+     * Computes the material and piece-square value of a board.
+     *
+     * @param board the board.
+     * @return the value for white.
+     */
+    public static int material(Board board) {
+        int value = 0;
+        for (int mask = board.getWhiteMask() | board.getBlackMask(); mask != 0; mask &= mask - 1) {
+            int i = Integer.numberOfTrailingZeros(mask);
+            value += PST[board.get(i) * 32 + i];
+        }
+        return value;
+    }
+
+    /**
+     * Computes the back row guard and mobility value of a board.
+     *
+     * @param board the board.
+     * @return the value for white.
+     */
+    private static int positional(Board board) {
+        int kings = board.getKingMask();
+        int whiteMen = board.getWhiteMask() & ~kings, blackMen = board.getBlackMask() & ~kings;
+        int back = Integer.bitCount(whiteMen & WHITE_BACK) - Integer.bitCount(blackMen & BLACK_BACK);
+        int mobility = Integer.bitCount(BitboardMoveGenerator.getMovers(board, true))
+                - Integer.bitCount(BitboardMoveGenerator.getMovers(board, false));
+        return BACK_RANK * back + MOBILITY * mobility;
+    }
+}
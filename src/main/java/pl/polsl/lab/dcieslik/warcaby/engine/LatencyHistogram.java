@@ -0,0 +1,164 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.Arrays;
+
+/**
+ * Counts durations in buckets of logarithmic width, so that its percentiles
+ * can be read at any time while its size stays fixed however many durations
+ * are recorded. Durations below {@link #SUB_BUCKETS} nanoseconds have a
+ * bucket each; above, every power of two is split into
+ * {@link #SUB_BUCKETS} / 2 buckets, which keeps the error of a percentile
+ * below about 3%. The methods are synchronized, so a histogram can be read on
+ * another thread than the one recording into it.
+ *
+ * @author Dawid Cieślik
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of buckets of width 1 at the bottom, twice the number of
+     * buckets of each power of two above.
+     */
+    private static final int SUB_BUCKETS = 64;
+
+    /**
+     * The base 2 logarithm of half of {@link #SUB_BUCKETS}.
+     */
+    private static final int SUB_BITS = 5;
+
+    /**
+     * The number of durations in each bucket.
+     */
+    private final long[] counts = new long[SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS / 2];
+
+    /**
+     * The number of durations recorded.
+     */
+    private long count;
+
+    /**
+     * The sum of the durations recorded, in nanoseconds.
+     */
+    private long sum;
+
+    /**
+     * The longest duration recorded, in nanoseconds.
+     */
+    private long max;
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative values count as 0.
+     */
+    public synchronized void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        counts[bucket(nanos)]++;
+        count++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    /**
+     * Forgets all recorded durations.
+     */
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Gets the number of durations recorded.
+     *
+     * @return the number of durations.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the longest duration recorded.
+     *
+     * @return the duration in nanoseconds, 0 if none was recorded.
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the mean of the durations recorded.
+     *
+     * @return the mean in nanoseconds, 0 if none was recorded.
+     */
+    public synchronized long getMean() {
+        return count == 0 ? 0 : sum / count;
+    }
+
+    /**
+     * Gets a percentile of the durations recorded: the duration that the
+     * given share of the durations does not exceed. It is the upper end of
+     * the bucket holding that duration, so it is never below the true
+     * percentile.
+     *
+     * @param percent the share in percent, from 0 to 100.
+     * @return the duration in nanoseconds, 0 if none was recorded.
+     */
+    public synchronized long getPercentile(double percent) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percent)) / 100 * count));
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(b));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Finds the bucket of a duration.
+     *
+     * @param nanos the duration in nanoseconds, not negative.
+     * @return the bucket.
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+        return SUB_BUCKETS + (shift - 1) * (SUB_BUCKETS / 2) + (int) (nanos >>> shift) - SUB_BUCKETS / 2;
+    }
+
+    /**
+     * Gets the longest duration of a bucket.
+     *
+     * @param bucket the bucket.
+     * @return the duration in nanoseconds.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / (SUB_BUCKETS / 2) + 1;
+        long sub = (bucket - SUB_BUCKETS) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Gives the number of durations, their mean, the 50th, 90th, 99th and
+     * 99.9th percentile and the longest one, in milliseconds.
+     *
+     * @return the summary.
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%d recorded, mean %.2f ms, p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, p99.9 %.2f ms,"
+                + " max %.2f ms", count, getMean() / 1e6, getPercentile(50) / 1e6, getPercentile(90) / 1e6,
+                getPercentile(99) / 1e6, getPercentile(99.9) / 1e6, max / 1e6);
+    }
+}
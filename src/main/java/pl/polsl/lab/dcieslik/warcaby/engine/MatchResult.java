@@ -0,0 +1,177 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+/**
+ * The score of one bot against another over the games of a
+ * {@link Tournament}, with the difference of their Elo ratings that it
+ * implies.
+ *
+ * @author Dawid Cieślik
+ */
+public class MatchResult {
+
+    /**
+     * The name of the first bot.
+     */
+    private final String first;
+
+    /**
+     * The name of the second bot.
+     */
+    private final String second;
+
+    /**
+     * The number of games won by the first bot.
+     */
+    private int wins;
+
+    /**
+     * The number of drawn games.
+     */
+    private int draws;
+
+    /**
+     * The number of games lost by the first bot.
+     */
+    private int losses;
+
+    /**
+     * Class constructor.
+     *
+     * @param first the name of the first bot.
+     * @param second the name of the second bot.
+     */
+    public MatchResult(String first, String second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Counts the result of a game.
+     *
+     * @param points the points of the first bot: 2 for a win, 1 for a draw and
+     * 0 for a loss.
+     */
+    public void add(int points) {
+        if (points == 2) {
+            wins++;
+        } else if (points == 1) {
+            draws++;
+        } else {
+            losses++;
+        }
+    }
+
+    /**
+     * Gets the name of the first bot.
+     *
+     * @return the name.
+     */
+    public String getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets the name of the second bot.
+     *
+     * @return the name.
+     */
+    public String getSecond() {
+        return second;
+    }
+
+    /**
+     * Gets the number of games won by the first bot.
+     *
+     * @return the number of games.
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * Gets the number of drawn games.
+     *
+     * @return the number of games.
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Gets the number of games lost by the first bot.
+     *
+     * @return the number of games.
+     */
+    public int getLosses() {
+        return losses;
+    }
+
+    /**
+     * Gets the number of games.
+     *
+     * @return the number of games.
+     */
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Gets the share of the points of the first bot.
+     *
+     * @return the share from 0 to 1, or 0.5 without games.
+     */
+    public double getScore() {
+        return getGames() == 0 ? 0.5 : (wins + 0.5 * draws) / getGames();
+    }
+
+    /**
+     * Gets the difference between the Elo ratings of the first and the second
+     * bot that gives the expected score equal to the score of the games.
+     *
+     * @return the difference, infinite if one bot won all games.
+     */
+    public double getElo() {
+        return elo(getScore());
+    }
+
+    /**
+     * Gets the half-width of the 95% confidence interval of the Elo
+     * difference, from the spread of the points of the games.
+     *
+     * @return the half-width, infinite if one bot won all games.
+     */
+    public double getEloMargin() {
+        int games = getGames();
+        if (games == 0 || wins == games || losses == games) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = getScore();
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        double deviation = 1.96 * Math.sqrt(variance / games);
+        return (elo(Math.min(1, score + deviation)) - elo(Math.max(0, score - deviation))) / 2;
+    }
+
+    /**
+     * Converts an expected score to an Elo difference.
+     *
+     * @param score the expected score from 0 to 1.
+     * @return the difference.
+     */
+    static double elo(double score) {
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Gives the names, the wins, draws and losses of the first bot and the
+     * Elo difference, for example "nodes:20000 vs random: +180 =15 -5, Elo
+     * +315 +/- 60".
+     *
+     * @return the result as a string.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s vs %s: +%d =%d -%d, Elo %+.0f +/- %.0f", first, second, wins, draws, losses,
+                getElo(), getEloMargin());
+    }
+}
@@ -0,0 +1,454 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Finds a turn by Monte Carlo tree search: it grows a tree of game states
+ * from the root, choosing the turns to follow by their upper confidence bound
+ * (UCT), and scores each new leaf by one game of random turns (a playout).
+ * The strength grows with the number of playouts, which makes it a cheap
+ * opponent whose level is set by its budget.
+ * <p>
+ * The tree is kept in parallel arrays indexed by node number instead of one
+ * object per node. The children of a node are created together and take
+ * consecutive numbers. The wins of a node count half points (2 for a win, 1
+ * for a draw) of the player who made the turn into it.
+ * <p>
+ * The playouts run in batches on a fork-join pool. The leaves of a batch are
+ * chosen one after another on the calling thread; each choice counts a visit
+ * without points on its path (a virtual loss), so the next choices spread
+ * over other branches. The playouts of the batch then run in parallel, and
+ * their results are added to the tree on the calling thread. Without a pool
+ * the playouts run on the calling thread as well. Every playout
+ * draws its turns from a seed given by its number, so a search gives the
+ * same result with any number of threads.
+ *
+ * @author Dawid Cieślik
+ */
+public class MonteCarloSearch {
+
+    /**
+     * The number of turns after which a playout is a draw.
+     */
+    public static final int MAX_PLAYOUT_PLIES = 150;
+
+    /**
+     * The weight of the exploration term of the upper confidence bound.
+     */
+    public static final double EXPLORATION = 1.4;
+
+    /**
+     * The default number of playouts of a batch.
+     */
+    public static final int DEFAULT_BATCH = 64;
+
+    /**
+     * The smallest number of playouts run by one task of the pool.
+     */
+    private static final int THRESHOLD = 8;
+
+    /**
+     * The pool the playouts run on, or null to run them on the calling
+     * thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of playouts of a batch.
+     */
+    private final int batchSize;
+
+    /**
+     * The seed of the playouts.
+     */
+    private long seed;
+
+    /**
+     * The parent of each node, -1 for the root.
+     */
+    private int[] parent = new int[1024];
+
+    /**
+     * The packed turn (see {@link Turn}) that leads from the parent to each
+     * node.
+     */
+    private long[] move = new long[1024];
+
+    /**
+     * The first child of each node.
+     */
+    private int[] firstChild = new int[1024];
+
+    /**
+     * The number of children of each node, -1 if they are not created yet.
+     */
+    private int[] childCount = new int[1024];
+
+    /**
+     * The number of visits of each node, including the virtual losses of the
+     * current batch.
+     */
+    private int[] visits = new int[1024];
+
+    /**
+     * The half points of each node, for the player who made the turn into
+     * it.
+     */
+    private int[] wins = new int[1024];
+
+    /**
+     * The number of nodes.
+     */
+    private int size;
+
+    /**
+     * The game being searched, a copy of the one passed to the search.
+     */
+    private Game game;
+
+    /**
+     * The turns generated at the expanded node.
+     */
+    private final TurnList turns = new TurnList();
+
+    /**
+     * The leaf node of each playout of a batch.
+     */
+    private final int[] leaves;
+
+    /**
+     * The packed game state of each leaf of a batch (see
+     * {@link Game#getStateHigh()} and {@link Game#getStateLow()}).
+     */
+    private final long[] leafStates;
+
+    /**
+     * The result of each playout of a batch: 1 if white won, -1 if black won
+     * and 0 for a draw.
+     */
+    private final int[] results;
+
+    /**
+     * Class constructor.
+     *
+     * @param threads the number of threads of the playouts.
+     */
+    public MonteCarloSearch(int threads) {
+        this(new ForkJoinPool(Math.max(1, threads)), DEFAULT_BATCH);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param pool the pool the playouts run on, or null to run them on the
+     * calling thread.
+     * @param batchSize the number of playouts of a batch.
+     */
+    public MonteCarloSearch(ForkJoinPool pool, int batchSize) {
+        this.pool = pool;
+        this.batchSize = Math.max(1, batchSize);
+        this.leaves = new int[this.batchSize];
+        this.leafStates = new long[2 * this.batchSize];
+        this.results = new int[this.batchSize];
+    }
+
+    /**
+     * Sets the seed of the playouts of the following searches.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the number of nodes of the tree of the last search.
+     *
+     * @return the number of nodes.
+     */
+    public int getTreeSize() {
+        return size;
+    }
+
+    /**
+     * Searches a game state with a fixed number of playouts.
+     *
+     * @param game the game to search, left unchanged.
+     * @param playouts the number of playouts.
+     * @return the turn of the root visited most often. Its score is the share
+     * of points of the turn in percent, its depth the length of the line of
+     * the most visited turns and its node count the number of playouts, so
+     * {@link SearchResult#getNodesPerSecond()} gives playouts per second.
+     */
+    public SearchResult search(Game game, int playouts) {
+        long start = System.nanoTime();
+        this.game = game.copy();
+        this.size = 0;
+        int root = allocate(1);
+        parent[root] = -1;
+        move[root] = Turn.NONE;
+        expand(root);
+        if (childCount[root] == 0) {
+            return new SearchResult(Turn.NONE, 0, 0, new long[0], 0, System.nanoTime() - start);
+        }
+
+        for (int done = 0; done < playouts; ) {
+            int n = Math.min(batchSize, playouts - done);
+            for (int b = 0; b < n; b++) {
+                leaves[b] = select(b);
+            }
+            if (pool != null) {
+                pool.invoke(new PlayoutTask(0, n, seed + done));
+            } else {
+                runPlayouts(0, n, seed + done);
+            }
+            for (int b = 0; b < n; b++) {
+                backpropagate(leaves[b], results[b]);
+            }
+            done += n;
+        }
+
+        long[] pv = new long[Search.MAX_PLY];
+        int length = 0;
+        for (int node = root; length < pv.length && childCount[node] > 0; ) {
+            node = mostVisited(node);
+            pv[length++] = move[node];
+        }
+        int best = mostVisited(root);
+        int score = (int) Math.round(50.0 * wins[best] / Math.max(1, visits[best]));
+        return new SearchResult(move[best], score, length, Arrays.copyOf(pv, length), playouts,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Stops the threads of the pool for good. The search cannot be used
+     * afterwards.
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Descends from the root to a leaf by the upper confidence bound,
+     * counting a virtual loss on the path, and stores the game state of the
+     * leaf. A leaf visited before gets its children and the first of them
+     * becomes the leaf.
+     *
+     * @param b the position of the leaf in the batch.
+     * @return the leaf node.
+     */
+    private int select(int b) {
+        int node = 0, depth = 0;
+        visits[node]++;
+        while (childCount[node] > 0) {
+            node = bestChild(node);
+            visits[node]++;
+            game.makeTurn(move[node]);
+            depth++;
+            if (childCount[node] < 0 && visits[node] > 1) {
+                expand(node);
+            }
+        }
+
+        leafStates[2 * b] = game.getStateHigh();
+        leafStates[2 * b + 1] = game.getStateLow();
+        for (int i = 0; i < depth; i++) {
+            game.unmakeMove();
+        }
+        return node;
+    }
+
+    /**
+     * Chooses the child with the largest upper confidence bound, or the
+     * first child without visits.
+     *
+     * @param node the node.
+     * @return the chosen child.
+     */
+    private int bestChild(int node) {
+        double logVisits = Math.log(visits[node]);
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int c = firstChild[node], end = c + childCount[node]; c < end; c++) {
+            if (visits[c] == 0) {
+                return c;
+            }
+            double value = wins[c] / (2.0 * visits[c]) + EXPLORATION * Math.sqrt(logVisits / visits[c]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Chooses the child with the most visits.
+     *
+     * @param node the node.
+     * @return the child.
+     */
+    private int mostVisited(int node) {
+        int best = firstChild[node];
+        for (int c = best + 1, end = best + childCount[node]; c < end; c++) {
+            if (visits[c] > visits[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Creates the children of a node, one for each legal turn of the game
+     * state it stands for, which is the current state of the game.
+     *
+     * @param node the node.
+     */
+    private void expand(int node) {
+        turns.clear();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        int first = allocate(turns.size());
+        for (int i = 0; i < turns.size(); i++) {
+            parent[first + i] = node;
+            move[first + i] = turns.get(i);
+        }
+        firstChild[node] = first;
+        childCount[node] = turns.size();
+    }
+
+    /**
+     * Adds the result of a playout to the nodes on the path from a leaf to
+     * the root, whose visits were counted by the selection. The turns
+     * alternate between the players, so the player who made the turn into a
+     * node alternates on the path as well.
+     *
+     * @param leaf the leaf node.
+     * @param result 1 if white won, -1 if black won and 0 for a draw.
+     */
+    private void backpropagate(int leaf, int result) {
+        int depth = 0;
+        for (int node = leaf; node > 0; node = parent[node]) {
+            depth++;
+        }
+        boolean white = game.isP1Turn() == (depth % 2 == 1);
+        for (int node = leaf; node > 0; node = parent[node]) {
+            wins[node] += result == 0 ? 1 : (result > 0) == white ? 2 : 0;
+            white = !white;
+        }
+    }
+
+    /**
+     * Allocates consecutive nodes without children or visits, growing the
+     * arrays if needed.
+     *
+     * @param count the number of nodes.
+     * @return the first node.
+     */
+    private int allocate(int count) {
+        if (size + count > parent.length) {
+            int capacity = Math.max(parent.length * 2, size + count);
+            parent = Arrays.copyOf(parent, capacity);
+            move = Arrays.copyOf(move, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            visits = Arrays.copyOf(visits, capacity);
+            wins = Arrays.copyOf(wins, capacity);
+        }
+        int first = size;
+        size += count;
+        Arrays.fill(childCount, first, size, -1);
+        Arrays.fill(visits, first, size, 0);
+        Arrays.fill(wins, first, size, 0);
+        return first;
+    }
+
+    /**
+     * Plays random turns from a packed game state until the game ends or
+     * {@link #MAX_PLAYOUT_PLIES} turns are made.
+     *
+     * @param game the game to play in.
+     * @param turns the list to generate the turns into.
+     * @param high the high long of the packed game state.
+     * @param low the low long of the packed game state.
+     * @param seed the seed of the random turns.
+     * @return 1 if white won, -1 if black won and 0 for a draw.
+     */
+    static int playout(Game game, TurnList turns, long high, long low, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        game.setState(high, low);
+        for (int ply = 0; ply < MAX_PLAYOUT_PLIES; ply++) {
+            turns.clear();
+            BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+            if (turns.isEmpty()) {
+                return game.isP1Turn() ? -1 : 1;
+            }
+            game.makeTurn(turns.get(random.nextInt(turns.size())));
+        }
+        return 0;
+    }
+
+    /**
+     * Runs a range of the playouts of a batch on the current thread.
+     *
+     * @param from the first playout of the range.
+     * @param to the playout after the last one of the range.
+     * @param batchSeed the seed of the first playout of the batch.
+     */
+    private void runPlayouts(int from, int to, long batchSeed) {
+        Game local = new Game();
+        TurnList list = new TurnList();
+        for (int b = from; b < to; b++) {
+            results[b] = playout(local, list, leafStates[2 * b], leafStates[2 * b + 1], batchSeed + b);
+        }
+    }
+
+    /**
+     * Runs the playouts of a range of the batch, splitting large ranges.
+     */
+    private class PlayoutTask extends RecursiveAction {
+
+        /**
+         * The first playout of the range.
+         */
+        private final int from;
+
+        /**
+         * The playout after the last one of the range.
+         */
+        private final int to;
+
+        /**
+         * The seed of the first playout of the batch.
+         */
+        private final long batchSeed;
+
+        /**
+         * Class constructor.
+         *
+         * @param from the first playout of the range.
+         * @param to the playout after the last one of the range.
+         * @param batchSeed the seed of the first playout of the batch.
+         */
+        PlayoutTask(int from, int to, long batchSeed) {
+            this.from = from;
+            this.to = to;
+            this.batchSeed = batchSeed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                runPlayouts(from, to, batchSeed);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new PlayoutTask(from, mid, batchSeed), new PlayoutTask(mid, to, batchSeed));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Looks up the turns played in the opening. The book is a file of 16-byte
+ * records, each holding the Zobrist key of a game state (see
+ * {@link Game#getKey()}), a turn encoded as by
+ * {@link TranspositionTable#encodeMove(long)} and its weight. The records are
+ * sorted by key and then by falling weight, so the turns of a game state are
+ * found by a binary search and the best one comes first.
+ * <p>
+ * The file is mapped into memory with {@link FileChannel#map}, so opening a
+ * book reads nothing and a lookup touches only the pages on the path of the
+ * binary search.
+ *
+ * @author Dawid Cieślik
+ */
+public class OpeningBook {
+
+    /**
+     * The number of bytes of a record.
+     */
+    public static final int RECORD_SIZE = 16;
+
+    /**
+     * The records of the book.
+     */
+    private final ByteBuffer records;
+
+    /**
+     * The number of records.
+     */
+    private final int count;
+
+    /**
+     * Class constructor.
+     *
+     * @param file the book file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public OpeningBook(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        this.count = records.capacity() / RECORD_SIZE;
+    }
+
+    /**
+     * Gets the number of records.
+     *
+     * @return the number of records.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Finds the turn of a game state with the largest weight.
+     *
+     * @param game the game.
+     * @return the packed turn (see {@link Turn}), or {@link Turn#NONE} if the
+     * game state is not in the book.
+     */
+    public long probe(Game game) {
+        return probe(game, null);
+    }
+
+    /**
+     * Chooses a turn of a game state at random, with a chance proportional
+     * to its weight.
+     *
+     * @param game the game.
+     * @param random the source of the choice, or null to choose the turn
+     * with the largest weight.
+     * @return the packed turn (see {@link Turn}), or {@link Turn#NONE} if the
+     * game state is not in the book.
+     */
+    public long probe(Game game, Random random) {
+        long key = game.getKey();
+        int first = find(key), last = first;
+        long total = 0;
+        while (last < count && getKey(last) == key) {
+            total += getWeight(last++);
+        }
+        if (first == last) {
+            return Turn.NONE;
+        }
+
+        int chosen = first;
+        if (random != null && total > 0) {
+            long pick = (long) (random.nextDouble() * total);
+            while (chosen < last - 1 && pick >= getWeight(chosen)) {
+                pick -= getWeight(chosen++);
+            }
+        }
+
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        for (int r = chosen; r < last; r++) {
+            for (int i = 0; i < turns.size(); i++) {
+                if (TranspositionTable.encodeMove(turns.get(i)) == getMove(r)) {
+                    return turns.get(i);
+                }
+            }
+        }
+        return Turn.NONE;
+    }
+
+    /**
+     * Finds the first record with a key that is not smaller than a key.
+     *
+     * @param key the key.
+     * @return the position of the record, or the number of records.
+     */
+    private int find(long key) {
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getKey(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the key of a record.
+     *
+     * @param record the position of the record.
+     * @return the Zobrist key of the game state.
+     */
+    public long getKey(int record) {
+        return records.getLong(record * RECORD_SIZE);
+    }
+
+    /**
+     * Gets the turn of a record.
+     *
+     * @param record the position of the record.
+     * @return the encoded turn.
+     */
+    public int getMove(int record) {
+        return records.getInt(record * RECORD_SIZE + 8);
+    }
+
+    /**
+     * Gets the weight of a record.
+     *
+     * @param record the position of the record.
+     * @return the weight.
+     */
+    public int getWeight(int record) {
+        return records.getInt(record * RECORD_SIZE + 12);
+    }
+
+    /**
+     * Writes a book file, sorting the records.
+     *
+     * @param file the book file.
+     * @param keys the Zobrist key of each record.
+     * @param moves the encoded turn of each record.
+     * @param weights the weight of each record.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Path file, long[] keys, int[] moves, int[] weights) throws IOException {
+        Integer[] order = new Integer[keys.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> keys[i])
+                .thenComparing(i -> weights[i], Comparator.reverseOrder())
+                .thenComparingInt(i -> moves[i]));
+
+        ByteBuffer buffer = ByteBuffer.allocate(keys.length * RECORD_SIZE);
+        for (int i : order) {
+            buffer.putLong(keys[i]).putInt(moves[i]).putInt(weights[i]);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Builds an {@link OpeningBook} from games the engine plays against itself.
+ * Every game starts with a few random turns, so that the games differ, and
+ * goes on with searched turns until it ends or reaches {@link #MAX_PLIES}
+ * turns, which counts as a draw. Each game state of the first turns of a
+ * game adds the result for the player who moved to the weight of the turn
+ * played: 2 for a win, 1 for a draw and 0 for a loss.
+ * <p>
+ * The games run on a pool of threads. Each game uses its own search and a
+ * cleared table, and its random turns come from a seed derived from its
+ * number, so the same settings always build the same book.
+ *
+ * @author Dawid Cieślik
+ */
+public class OpeningBookBuilder {
+
+    /**
+     * The number of turns after which a game is a draw.
+     */
+    public static final int MAX_PLIES = 200;
+
+    /**
+     * The size of the table of each thread in megabytes.
+     */
+    private static final int TABLE_MEGABYTES = 4;
+
+    /**
+     * The number of turns of each game kept in the book.
+     */
+    private final int plies;
+
+    /**
+     * The number of random turns at the start of each game.
+     */
+    private final int randomPlies;
+
+    /**
+     * The budget of the search of each turn.
+     */
+    private final SearchLimits limits;
+
+    /**
+     * Class constructor.
+     *
+     * @param plies the number of turns of each game kept in the book.
+     * @param randomPlies the number of random turns at the start of each
+     * game.
+     * @param limits the budget of the search of each turn.
+     */
+    public OpeningBookBuilder(int plies, int randomPlies, SearchLimits limits) {
+        this.plies = plies;
+        this.randomPlies = randomPlies;
+        this.limits = limits;
+    }
+
+    /**
+     * Plays the games and writes the book.
+     *
+     * @param file the book file.
+     * @param games the number of games.
+     * @param threads the number of threads.
+     * @return the number of records written.
+     * @throws IOException if the book cannot be written.
+     */
+    public int build(Path file, int games, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(
+                () -> new TranspositionTable(TABLE_MEGABYTES));
+        Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int g = 0; g < games; g++) {
+                long seed = g;
+                futures.add(pool.submit(() -> play(seed, tables.get())));
+            }
+            for (Future<long[]> future : futures) {
+                long[] records = future.get();
+                for (int r = 0; r < records.length; r += 2) {
+                    weights.computeIfAbsent(records[r], k -> new HashMap<>())
+                            .merge((int) (records[r + 1] >>> 32), (int) records[r + 1], Integer::sum);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int count = weights.values().stream().mapToInt(Map::size).sum();
+        long[] keys = new long[count];
+        int[] moves = new int[count], counts = new int[count];
+        int i = 0;
+        for (Map.Entry<Long, Map<Integer, Integer>> position : weights.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                keys[i] = position.getKey();
+                moves[i] = move.getKey();
+                counts[i++] = move.getValue();
+            }
+        }
+        OpeningBook.write(file, keys, moves, counts);
+        return count;
+    }
+
+    /**
+     * Plays one game.
+     *
+     * @param seed the seed of the random turns.
+     * @param tt the table of the search, cleared before the game.
+     * @return two longs for each kept turn: the key of the game state, and
+     * the encoded turn in the high 32 bits with the points of the player who
+     * moved in the low 32 bits.
+     */
+    private long[] play(long seed, TranspositionTable tt) {
+        Random random = new Random(seed);
+        Game game = new Game();
+        Search search = new Search(new Evaluator(), tt);
+        tt.clear();
+        TurnList turns = new TurnList();
+        long[] records = new long[2 * plies];
+        boolean[] movers = new boolean[plies];
+
+        int ply = 0;
+        while (ply < MAX_PLIES && !game.isGameOver()) {
+            long turn;
+            if (ply < randomPlies) {
+                turns.clear();
+                BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(),
+                        turns);
+                turn = turns.get(random.nextInt(turns.size()));
+            } else {
+                turn = search.search(game, limits).getBestTurn();
+            }
+            if (ply < plies) {
+                records[2 * ply] = game.getKey();
+                records[2 * ply + 1] = (long) TranspositionTable.encodeMove(turn) << 32;
+                movers[ply] = game.isP1Turn();
+            }
+            game.makeTurn(turn);
+            ply++;
+        }
+
+        boolean draw = !game.isGameOver();
+        boolean whiteWon = !game.isP1Turn();
+        int kept = Math.min(ply, plies);
+        for (int i = 0; i < kept; i++) {
+            records[2 * i + 1] |= draw ? 1 : movers[i] == whiteWon ? 2 : 0;
+        }
+        return Arrays.copyOf(records, 2 * kept);
+    }
+}
@@ -0,0 +1,183 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Searches a game state on several threads at once (lazy SMP). Every thread
+ * runs its own iterative deepening {@link Search} of the same root and all of
+ * them share one {@link TranspositionTable}, so the results of one thread cut
+ * the trees of the others. The helper threads start at staggered depths, so
+ * that they do not all search the same iteration. The calling thread runs the
+ * main search; when it completes, the helpers are stopped and the deepest
+ * completed iteration of any thread is returned. With one thread the search
+ * runs only on the calling thread and is deterministic.
+ *
+ * @author Dawid Cieślik
+ */
+public class ParallelSearch {
+
+    /**
+     * The table shared by all the threads.
+     */
+    private final TranspositionTable tt;
+
+    /**
+     * The searches of each thread, the main search first.
+     */
+    private final Search[] searches;
+
+    /**
+     * The threads of the helper searches, or null with a single thread.
+     */
+    private final ExecutorService helpers;
+
+    /**
+     * The receiver of the result of each completed main iteration, or null.
+     */
+    private Consumer<SearchResult> listener;
+
+    /**
+     * Class constructor.
+     *
+     * @param threads the number of threads, at least 1.
+     * @param megabytes the size of the shared transposition table.
+     */
+    public ParallelSearch(int threads, int megabytes) {
+        this(threads, new TranspositionTable(megabytes));
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param threads the number of threads, at least 1.
+     * @param tt the shared transposition table.
+     */
+    public ParallelSearch(int threads, TranspositionTable tt) {
+        this.tt = tt;
+        this.searches = new Search[Math.max(1, threads)];
+        for (int i = 0; i < searches.length; i++) {
+            searches[i] = new Search(new Evaluator(), tt);
+        }
+        this.helpers = searches.length == 1 ? null
+                : Executors.newFixedThreadPool(searches.length - 1, r -> {
+                    Thread thread = new Thread(r, "search-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Sets the receiver of the result of each completed iteration of the main
+     * search. It is called on the calling thread of {@link #search}.
+     *
+     * @param listener the receiver, or null.
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the tablebase of the endgames of all threads.
+     *
+     * @param tablebase the tablebase, or null.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        for (Search search : searches) {
+            search.setTablebase(tablebase);
+        }
+    }
+
+    /**
+     * Gets the number of threads.
+     *
+     * @return the number of threads.
+     */
+    public int getThreads() {
+        return searches.length;
+    }
+
+    /**
+     * Gets the shared transposition table.
+     *
+     * @return the table.
+     */
+    public TranspositionTable getTable() {
+        return tt;
+    }
+
+    /**
+     * Searches a game state within the limits. The node limit applies to the
+     * main search; the node count of the result covers all threads.
+     *
+     * @param game the game to search, left unchanged.
+     * @param limits the budget of the search.
+     * @return the deepest completed iteration of any thread.
+     */
+    public SearchResult search(Game game, SearchLimits limits) {
+        if (helpers == null) {
+            searches[0].setListener(listener);
+            return searches[0].search(game, limits);
+        }
+
+        long start = System.nanoTime();
+        tt.newSearch();
+        List<Future<SearchResult>> futures = new ArrayList<>(searches.length - 1);
+        for (Search search : searches) {
+            search.clearStop();
+        }
+        for (int i = 1; i < searches.length; i++) {
+            Search search = searches[i];
+            Game copy = game.copy();
+            int firstDepth = 1 + i % 3;
+            futures.add(helpers.submit(() -> search.search(copy, limits, firstDepth, null)));
+        }
+
+        SearchResult result = searches[0].search(game, limits, 1, listener);
+        stop();
+
+        long nodes = result.getNodes();
+        for (Future<SearchResult> future : futures) {
+            try {
+                SearchResult helper = future.get();
+                nodes += helper.getNodes();
+                if (helper.getDepth() > result.getDepth()) {
+                    result = helper;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        return new SearchResult(result.getBestTurn(), result.getScore(), result.getDepth(),
+                result.getPv(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Stops all threads of the running search. Can be called from any thread.
+     */
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Stops the helper threads for good. The search cannot be used
+     * afterwards.
+     */
+    public void shutdown() {
+        stop();
+        if (helpers != null) {
+            helpers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,750 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Finds the best turn of a game state with a negamax alpha-beta search. The
+ * search deepens iteratively, searches all but the first turn of a node with
+ * a null window (principal variation search) and starts each iteration with
+ * an aspiration window around the previous score. Every whole turn, including
+ * a multiple skip, is one ply. It needs no user interface.
+ *
+ * @author Dawid Cieślik
+ */
+public class Search {
+
+    /**
+     * The deepest ply the search can reach.
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * The score of a won game, less the number of plies to the win.
+     */
+    public static final int WIN = 30000;
+
+    /**
+     * The score of a game state won according to the tablebase, less the
+     * number of plies to the end of the game. It stays below the scores of
+     * the game ends found by the search itself.
+     */
+    public static final int TABLEBASE_WIN = 20000;
+
+    /**
+     * The lowest score of a game state won according to the tablebase, the
+     * farthest from the root.
+     */
+    static final int TABLEBASE_WIN_BOUND = TABLEBASE_WIN - MAX_PLY - Tablebase.MAX_DISTANCE;
+
+    /**
+     * A score above any reachable score.
+     */
+    public static final int INFINITY = 32000;
+
+    /**
+     * The half-width of the aspiration window.
+     */
+    private static final int ASPIRATION_WINDOW = 30;
+
+    /**
+     * The mask of the node counts at which the limits are checked, small
+     * enough that a deadline is kept to a fraction of a millisecond.
+     */
+    private static final int CHECK_MASK = 255;
+
+    /**
+     * The order score of the turn from the transposition table.
+     */
+    private static final int TT_MOVE_SCORE = 1 << 30;
+
+    /**
+     * The order score of a capture with a single skip; each further skip
+     * adds the same again.
+     */
+    private static final int CAPTURE_SCORE = 1 << 24;
+
+    /**
+     * The order score of the first killer move of a ply; the second one
+     * scores one less.
+     */
+    private static final int KILLER_SCORE = 1 << 23;
+
+    /**
+     * The history value at which the whole history table is halved.
+     */
+    private static final int HISTORY_MAX = 1 << 20;
+
+    /**
+     * The size of the transposition table of a search created without one.
+     */
+    public static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    /**
+     * The evaluator of the leaf game states.
+     */
+    private final Evaluator evaluator;
+
+    /**
+     * The transposition table, or null to search without one.
+     */
+    private final TranspositionTable tt;
+
+    /**
+     * The turn lists of each ply, reused across searches.
+     */
+    private final TurnList[] lists = new TurnList[MAX_PLY + 1];
+
+    /**
+     * The principal variation of each ply: pv[ply] holds the best line from
+     * that ply.
+     */
+    private final long[][] pv = new long[MAX_PLY + 1][MAX_PLY + 1];
+
+    /**
+     * The length of the principal variation of each ply.
+     */
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /**
+     * The order scores of the turns of each ply.
+     */
+    private final int[][] orderScores = new int[MAX_PLY + 1][64];
+
+    /**
+     * The two most recent quiet turns of each ply that caused a cutoff, as
+     * encoded moves (see {@link TranspositionTable#encodeMove(long)}), at
+     * [ply * 2] and [ply * 2 + 1].
+     */
+    private final int[] killers = new int[(MAX_PLY + 1) * 2];
+
+    /**
+     * The history of cutoffs of quiet turns at [side * 1024 + start * 32 +
+     * end], side 0 for white and 1 for black.
+     */
+    private final int[] history = new int[2 * 32 * 32];
+
+    /**
+     * The flag to order the turns by captures, killers and history; without
+     * it only the turn from the table is tried first.
+     */
+    private boolean ordering = true;
+
+    /**
+     * The flag to search the captures at the horizon; without it the horizon
+     * game states get their static score.
+     */
+    private boolean quiescence = true;
+
+    /**
+     * The tablebase of the endgames, or null to search without one.
+     */
+    private Tablebase tablebase;
+
+    /**
+     * The game being searched, a copy of the one passed to the search.
+     */
+    private Game game;
+
+    /**
+     * The number of nodes visited by the current search.
+     */
+    private long nodes;
+
+    /**
+     * The number of nodes the current search may visit.
+     */
+    private long maxNodes;
+
+    /**
+     * The number of nanoseconds the current search may take.
+     */
+    private long maxNanos;
+
+    /**
+     * The time at which the current search started.
+     */
+    private long startTime;
+
+    /**
+     * The time, as given by {@link System#nanoTime()}, by which the searches
+     * stop whatever their limits, if {@link #hasDeadline} is set.
+     */
+    private volatile long deadline;
+
+    /**
+     * The flag set if the searches have a deadline.
+     */
+    private volatile boolean hasDeadline;
+
+    /**
+     * The flag set to stop the current search as soon as possible.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * The receiver of the result of each completed iteration, or null.
+     */
+    private Consumer<SearchResult> listener;
+
+    /**
+     * Class constructor.
+     */
+    public Search() {
+        this(new Evaluator(), new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param evaluator the evaluator of the leaf game states.
+     * @param tt the transposition table, which may be shared with other
+     * searches, or null to search without one.
+     */
+    public Search(Evaluator evaluator, TranspositionTable tt) {
+        this.evaluator = evaluator;
+        this.tt = tt;
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new TurnList();
+        }
+    }
+
+    /**
+     * Sets the receiver of the result of each completed iteration. It is
+     * called on the searching thread.
+     *
+     * @param listener the receiver, or null.
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Turns the ordering of turns by captures, killers and history on or off,
+     * for example to measure its effect.
+     *
+     * @param ordering false to try only the turn from the table first.
+     */
+    public void setOrdering(boolean ordering) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Turns the search of the captures at the horizon on or off.
+     *
+     * @param quiescence false to give the horizon game states their static
+     * score even in the middle of a capture sequence.
+     */
+    public void setQuiescence(boolean quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * Sets the tablebase whose game states are scored without searching
+     * them. The root is always searched, so that the search returns a turn.
+     *
+     * @param tablebase the tablebase, or null.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Sets the time by which the running and the following searches stop,
+     * whatever their limits. Can be called from any thread.
+     *
+     * @param deadline the time as given by {@link System#nanoTime()}.
+     */
+    void setDeadline(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /**
+     * Removes the deadline of the running and the following searches. Can be
+     * called from any thread.
+     */
+    void clearDeadline() {
+        this.hasDeadline = false;
+    }
+
+    /**
+     * Stops the running search. The search returns the result of the last
+     * completed iteration. Can be called from any thread.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Clears the stop flag before a helper search is started, so that a stop
+     * arriving before the helper runs is not lost.
+     */
+    void clearStop() {
+        this.stopped = false;
+    }
+
+    /**
+     * Searches a game state within the limits.
+     *
+     * @param game the game to search, left unchanged.
+     * @param limits the budget of the search.
+     * @return the result of the last completed iteration. If no iteration
+     * completed, the first legal turn with a score of 0; if there are no legal
+     * turns, {@link Turn#NONE} with a losing score.
+     */
+    public SearchResult search(Game game, SearchLimits limits) {
+        this.stopped = false;
+        if (tt != null) {
+            tt.newSearch();
+        }
+        return search(game, limits, 1, listener);
+    }
+
+    /**
+     * Searches a game state within the limits, without resetting the stop
+     * flag or the age of the table. Used by the helpers of a
+     * {@link ParallelSearch}, which share the table with the main search.
+     *
+     * @param game the game to search, left unchanged.
+     * @param limits the budget of the search.
+     * @param firstDepth the depth of the first iteration.
+     * @param listener the receiver of each completed iteration, or null.
+     * @return the result of the last completed iteration.
+     */
+    SearchResult search(Game game, SearchLimits limits, int firstDepth, Consumer<SearchResult> listener) {
+        this.game = game.copy();
+        Arrays.fill(killers, 0);
+        for (int i = 0; i < history.length; i++) {
+            history[i] >>= 1;
+        }
+        evaluator.reset(this.game);
+        this.nodes = 0;
+        this.maxNodes = limits.getMaxNodes();
+        this.startTime = System.nanoTime();
+        this.maxNanos = limits.getMaxMillis() >= Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : limits.getMaxMillis() * 1_000_000;
+
+        TurnList root = new TurnList();
+        generate(root);
+        if (root.isEmpty()) {
+            return new SearchResult(Turn.NONE, -WIN, 0, new long[0], 0, System.nanoTime() - startTime);
+        }
+
+        SearchResult result = new SearchResult(root.get(0), 0, 0, new long[]{root.get(0)}, 0, 0);
+        for (int depth = Math.min(firstDepth, limits.getMaxDepth()); depth <= limits.getMaxDepth(); depth++) {
+            int score = aspiration(depth, result.getScore());
+            if (stopped) {
+                break;
+            }
+
+            result = new SearchResult(pv[0][0], score, depth, Arrays.copyOf(pv[0], pvLength[0]),
+                    nodes, System.nanoTime() - startTime);
+            if (listener != null) {
+                listener.accept(result);
+            }
+            if (result.isWinScore()) {
+                break;
+            }
+        }
+
+        return new SearchResult(result.getBestTurn(), result.getScore(), result.getDepth(),
+                result.getPv(), nodes, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Searches the root with a window around the previous score, widening it
+     * to the full window if the score falls outside.
+     *
+     * @param depth the depth of the iteration.
+     * @param previous the score of the previous iteration.
+     * @return the score of the root.
+     */
+    private int aspiration(int depth, int previous) {
+        if (depth < 3) {
+            return negamax(depth, 0, -INFINITY, INFINITY);
+        }
+
+        int alpha = previous - ASPIRATION_WINDOW, beta = previous + ASPIRATION_WINDOW;
+        int score = negamax(depth, 0, alpha, beta);
+        if (!stopped && (score <= alpha || score >= beta)) {
+            score = negamax(depth, 0, -INFINITY, INFINITY);
+        }
+        return score;
+    }
+
+    /**
+     * Searches a node with principal variation search.
+     *
+     * @param depth the remaining depth in turns.
+     * @param ply the distance from the root in turns.
+     * @param alpha the lower bound of the window.
+     * @param beta the upper bound of the window.
+     * @return the score of the node for the side to move.
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        pvLength[ply] = 0;
+        if ((++nodes & CHECK_MASK) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        if (tablebase != null && ply > 0 && game.getSkipIndex() == -1) {
+            int value = tablebase.probe(game.getExactBoard(), game.isP1Turn());
+            if (value != Tablebase.UNKNOWN) {
+                return value == Tablebase.DRAW ? 0
+                        : Tablebase.isWin(value) ? TABLEBASE_WIN - ply - Tablebase.getDistance(value)
+                        : -TABLEBASE_WIN + ply + Tablebase.getDistance(value);
+            }
+        }
+
+        long key = 0;
+        int ttMove = 0;
+        if (tt != null) {
+            key = game.getKey();
+            long entry = tt.probe(key);
+            if (entry != 0) {
+                ttMove = TranspositionTable.getMove(entry);
+                if (beta - alpha == 1 && TranspositionTable.getDepth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.getScore(entry), ply);
+                    int bound = TranspositionTable.getBound(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER && score >= beta)
+                            || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        TurnList turns = generate(lists[ply]);
+        if (turns.isEmpty()) {
+            return -WIN + ply;
+        }
+
+        int[] scores = null;
+        if (ordering) {
+            scores = scoreTurns(turns, ply, ttMove);
+        } else if (ttMove != 0) {
+            moveToFront(turns, ttMove);
+        }
+
+        int best = -INFINITY, alphaStart = alpha;
+        long bestTurn = turns.get(0);
+        for (int i = 0; i < turns.size(); i++) {
+            if (scores != null) {
+                pickNext(turns, scores, i);
+            }
+            long turn = turns.get(i);
+            makeTurn(turn);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            unmakeTurn();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestTurn = turn;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, turn);
+                    if (alpha >= beta) {
+                        if (ordering && Turn.getCaptured(turn) == 0) {
+                            updateQuiet(turn, ply, depth);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (tt != null) {
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > alphaStart ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            tt.store(key, bound == TranspositionTable.UPPER ? 0 : TranspositionTable.encodeMove(bestTurn),
+                    toTable(best, ply), depth, bound);
+        }
+        return best;
+    }
+
+    /**
+     * Searches the captures at the horizon, until the side to move has none.
+     * Skipping is mandatory, so a side that can skip cannot stand pat on the
+     * static score; a side that cannot skip gets the static score.
+     *
+     * @param ply the distance from the root in turns.
+     * @param alpha the lower bound of the window.
+     * @param beta the upper bound of the window.
+     * @return the score of the node for the side to move.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if ((++nodes & CHECK_MASK) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        if (!game.hasLegalMove()) {
+            return -WIN + ply;
+        }
+        if (!quiescence || ply >= MAX_PLY || !game.getExactBoard().hasAnyCapture(game.isP1Turn())) {
+            return evaluator.evaluate(game);
+        }
+
+        TurnList turns = generate(lists[ply]);
+        int[] scores = scoreTurns(turns, ply, 0);
+        int best = -INFINITY;
+        for (int i = 0; i < turns.size(); i++) {
+            pickNext(turns, scores, i);
+            long turn = turns.get(i);
+            makeTurn(turn);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            unmakeTurn();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, turn);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gives each turn of a ply its order score: the turn from the table
+     * first, then captures by the number of skips, then the killer moves of
+     * the ply, then the other turns by their history.
+     *
+     * @param turns the turns of the ply.
+     * @param ply the ply.
+     * @param ttMove the encoded move from the table, or 0.
+     * @return the order scores, in the order of the turns.
+     */
+    private int[] scoreTurns(TurnList turns, int ply, int ttMove) {
+        if (orderScores[ply].length < turns.size()) {
+            orderScores[ply] = new int[turns.size() * 2];
+        }
+        int[] scores = orderScores[ply];
+        int side = game.isP1Turn() ? 0 : 1024;
+        for (int i = 0; i < turns.size(); i++) {
+            long turn = turns.get(i);
+            int move = TranspositionTable.encodeMove(turn);
+            if (move == ttMove) {
+                scores[i] = TT_MOVE_SCORE;
+            } else if (Turn.getCaptured(turn) != 0) {
+                scores[i] = CAPTURE_SCORE * Turn.getCaptureCount(turn);
+            } else if (move == killers[ply * 2]) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killers[ply * 2 + 1]) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[side + Turn.getStart(turn) * 32 + Turn.getEnd(turn)];
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Moves the turn with the highest order score among the turns from a
+     * position on to that position. Turns of equal score keep their
+     * generation order.
+     *
+     * @param turns the turns of the ply.
+     * @param scores the order scores of the turns.
+     * @param i the position to fill.
+     */
+    private static void pickNext(TurnList turns, int[] scores, int i) {
+        int best = i;
+        for (int j = i + 1; j < turns.size(); j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        long turn = turns.get(best);
+        int score = scores[best];
+        for (int j = best; j > i; j--) {
+            turns.set(j, turns.get(j - 1));
+            scores[j] = scores[j - 1];
+        }
+        turns.set(i, turn);
+        scores[i] = score;
+    }
+
+    /**
+     * Records a quiet turn that caused a cutoff as a killer move of its ply
+     * and in the history table.
+     *
+     * @param turn the packed turn.
+     * @param ply the ply.
+     * @param depth the remaining depth of the node.
+     */
+    private void updateQuiet(long turn, int ply, int depth) {
+        int move = TranspositionTable.encodeMove(turn);
+        if (killers[ply * 2] != move) {
+            killers[ply * 2 + 1] = killers[ply * 2];
+            killers[ply * 2] = move;
+        }
+
+        int i = (game.isP1Turn() ? 0 : 1024) + Turn.getStart(turn) * 32 + Turn.getEnd(turn);
+        history[i] += depth * depth;
+        if (history[i] >= HISTORY_MAX) {
+            for (int j = 0; j < history.length; j++) {
+                history[j] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Moves the turn matching an encoded move to the front of a list, keeping
+     * the order of the other turns.
+     *
+     * @param turns the list of turns.
+     * @param move the encoded move (see
+     * {@link TranspositionTable#encodeMove(long)}).
+     */
+    private static void moveToFront(TurnList turns, int move) {
+        for (int i = 0; i < turns.size(); i++) {
+            long turn = turns.get(i);
+            if (TranspositionTable.encodeMove(turn) == move) {
+                for (int j = i; j > 0; j--) {
+                    turns.set(j, turns.get(j - 1));
+                }
+                turns.set(0, turn);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Converts a score to the form stored in the table: win scores, also
+     * those of the tablebase, count the plies from the stored game state
+     * instead of from the root.
+     *
+     * @param score the score.
+     * @param ply the distance from the root.
+     * @return the score to store.
+     */
+    static int toTable(int score, int ply) {
+        if (score >= TABLEBASE_WIN_BOUND) {
+            return score + ply;
+        } else if (score <= -TABLEBASE_WIN_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score read from the table back to the distance from the
+     * root.
+     *
+     * @param score the stored score.
+     * @param ply the distance from the root.
+     * @return the score.
+     */
+    static int fromTable(int score, int ply) {
+        if (score >= TABLEBASE_WIN_BOUND) {
+            return score - ply;
+        } else if (score <= -TABLEBASE_WIN_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Makes a turn the first move of the principal variation of a ply,
+     * followed by the principal variation of the next ply.
+     *
+     * @param ply the ply.
+     * @param turn the packed turn.
+     */
+    private void updatePv(int ply, long turn) {
+        pv[ply][0] = turn;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+
+    /**
+     * Makes a turn in the game and in the value kept by the evaluator.
+     *
+     * @param turn the packed turn.
+     */
+    private void makeTurn(long turn) {
+        evaluator.make(game.getExactBoard(), turn);
+        game.makeTurn(turn);
+    }
+
+    /**
+     * Takes back the last turn made by {@link #makeTurn(long)}.
+     */
+    private void unmakeTurn() {
+        game.unmakeMove();
+        evaluator.unmake();
+    }
+
+    /**
+     * Generates the legal turns of the current game state.
+     *
+     * @param turns the list to fill.
+     * @return the filled list.
+     */
+    private TurnList generate(TurnList turns) {
+        turns.clear();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        return turns;
+    }
+
+    /**
+     * Stops the search if it used up its nodes or time or reached its
+     * deadline.
+     */
+    private void checkLimits() {
+        long now = System.nanoTime();
+        if (nodes >= maxNodes || now - startTime >= maxNanos || hasDeadline && now - deadline >= 0) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Gets the transposition table of the search.
+     *
+     * @return the table, or null if the search has none.
+     */
+    public TranspositionTable getTable() {
+        return tt;
+    }
+
+    /**
+     * Gets the number of nodes visited by the last search.
+     *
+     * @return the number of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
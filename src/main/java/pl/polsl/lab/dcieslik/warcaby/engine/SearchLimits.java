@@ -0,0 +1,85 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+/**
+ * The budget of a search: the deepest iteration, the number of nodes and the
+ * time it may use. A limit of 0 means no limit.
+ *
+ * @author Dawid Cieślik
+ */
+public class SearchLimits {
+
+    /**
+     * The deepest iteration of the search, in turns.
+     */
+    private final int maxDepth;
+
+    /**
+     * The number of nodes the search may visit.
+     */
+    private final long maxNodes;
+
+    /**
+     * The number of milliseconds the search may take.
+     */
+    private final long maxMillis;
+
+    /**
+     * Class constructor.
+     *
+     * @param maxDepth the deepest iteration, or 0 for no limit.
+     * @param maxNodes the number of nodes, or 0 for no limit.
+     * @param maxMillis the number of milliseconds, or 0 for no limit.
+     */
+    public SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+        this.maxDepth = maxDepth <= 0 ? Search.MAX_PLY - 1 : Math.min(maxDepth, Search.MAX_PLY - 1);
+        this.maxNodes = maxNodes <= 0 ? Long.MAX_VALUE : maxNodes;
+        this.maxMillis = maxMillis <= 0 ? Long.MAX_VALUE : maxMillis;
+    }
+
+    /**
+     * Creates limits with only a depth.
+     *
+     * @param maxDepth the deepest iteration.
+     * @return the limits.
+     */
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * Creates limits with only a time.
+     *
+     * @param maxMillis the number of milliseconds.
+     * @return the limits.
+     */
+    public static SearchLimits time(long maxMillis) {
+        return new SearchLimits(0, 0, maxMillis);
+    }
+
+    /**
+     * Gets the deepest iteration of the search.
+     *
+     * @return the depth in turns.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the number of nodes the search may visit.
+     *
+     * @return the number of nodes, {@link Long#MAX_VALUE} if not limited.
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * Gets the number of milliseconds the search may take.
+     *
+     * @return the time, {@link Long#MAX_VALUE} if not limited.
+     */
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+}
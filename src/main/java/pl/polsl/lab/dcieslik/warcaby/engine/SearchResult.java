@@ -0,0 +1,152 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import pl.polsl.lab.dcieslik.warcaby.model.Turn;
+
+/**
+ * The result of a completed iteration of a search: the best turn, its score,
+ * the principal variation and the work done so far.
+ *
+ * @author Dawid Cieślik
+ */
+public class SearchResult {
+
+    /**
+     * The best packed turn (see {@link Turn}), or {@link Turn#NONE}.
+     */
+    private final long bestTurn;
+
+    /**
+     * The score of the best turn for the side to move.
+     */
+    private final int score;
+
+    /**
+     * The depth of the iteration, in turns.
+     */
+    private final int depth;
+
+    /**
+     * The principal variation, starting with the best turn.
+     */
+    private final long[] pv;
+
+    /**
+     * The number of nodes visited by the whole search so far.
+     */
+    private final long nodes;
+
+    /**
+     * The time taken by the whole search so far, in nanoseconds.
+     */
+    private final long nanos;
+
+    /**
+     * Class constructor.
+     *
+     * @param bestTurn the best packed turn, or {@link Turn#NONE}.
+     * @param score the score of the best turn.
+     * @param depth the depth of the iteration.
+     * @param pv the principal variation.
+     * @param nodes the number of nodes visited.
+     * @param nanos the time taken in nanoseconds.
+     */
+    public SearchResult(long bestTurn, int score, int depth, long[] pv, long nodes, long nanos) {
+        this.bestTurn = bestTurn;
+        this.score = score;
+        this.depth = depth;
+        this.pv = pv;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Gets the best turn.
+     *
+     * @return the best packed turn, or {@link Turn#NONE} if there is none.
+     */
+    public long getBestTurn() {
+        return bestTurn;
+    }
+
+    /**
+     * Gets the score of the best turn for the side to move, positive if the
+     * side to move is better.
+     *
+     * @return the score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Checks if the score is a forced win or loss.
+     *
+     * @return true if the score is a win or a loss.
+     */
+    public boolean isWinScore() {
+        return Math.abs(score) >= Search.WIN - Search.MAX_PLY;
+    }
+
+    /**
+     * Gets the depth of the iteration.
+     *
+     * @return the depth in turns.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the principal variation.
+     *
+     * @return a copy of the packed turns of the principal variation.
+     */
+    public long[] getPv() {
+        return pv.clone();
+    }
+
+    /**
+     * Gets the number of nodes visited.
+     *
+     * @return the number of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the time taken.
+     *
+     * @return the time in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Gets the speed of the search.
+     *
+     * @return the number of nodes per second.
+     */
+    public long getNodesPerSecond() {
+        return (long) (nodes / Math.max(nanos / 1e9, 1e-9));
+    }
+
+    /**
+     * Gets a readable form of the result, for example "depth 6 score 12 nodes
+     * 10432 nps 2100000 pv 22-17 9-13".
+     *
+     * @return the result as a string.
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append("depth ").append(depth).append(" score ").append(score)
+                .append(" nodes ").append(nodes).append(" nps ").append(getNodesPerSecond())
+                .append(" pv");
+        for (long turn : pv) {
+            s.append(' ').append(Turn.toString(turn));
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,445 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Looks up the exact value of endgame positions in the files written by
+ * {@link TablebaseGenerator}. There is one file per material, the numbers of
+ * white checkers, white kings, black checkers and black kings, holding one
+ * byte per position: 0 for a draw, {@link #INVALID} for an index that is not
+ * a position, and otherwise the distance in turns to the end of the game plus
+ * one. An odd distance is a win of the side to move, an even one a loss.
+ * <p>
+ * The files are mapped into memory with {@link FileChannel#map}, so a lookup
+ * reads one byte of the page cache and the Java heap does not grow with the
+ * size of the tables. A table is mapped on its first lookup.
+ * <p>
+ * Positions are indexed by ranking the squares of each kind of piece among
+ * the squares left by the kinds before it: white checkers among the 28 tiles
+ * they can stand on, black checkers among the tiles without white checkers,
+ * white kings and then black kings among the tiles still empty. The index
+ * ends with the side to move. The only indexes that are not positions are
+ * those with a black checker on the last row.
+ *
+ * @author Dawid Cieślik
+ */
+public class Tablebase {
+
+    /**
+     * The value of a position without a table.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * The value of a drawn position, where neither side can force a win.
+     */
+    public static final int DRAW = 0;
+
+    /**
+     * The value of an index that is not a position.
+     */
+    public static final int INVALID = 255;
+
+    /**
+     * The largest distance that can be stored.
+     */
+    public static final int MAX_DISTANCE = 253;
+
+    /**
+     * The tiles a white checker can stand on: all but row 0.
+     */
+    static final int WHITE_CHECKER_TILES = ~0xF;
+
+    /**
+     * The tiles a black checker cannot stand on: row 7.
+     */
+    static final int BLACK_CHECKER_LAST_ROW = 0xF0000000;
+
+    /**
+     * The binomial coefficients up to 32, BINOMIAL[n][k] = n! / (k! (n - k)!).
+     */
+    private static final long[][] BINOMIAL = new long[34][34];
+
+    static {
+        for (int n = 0; n < BINOMIAL.length; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    /**
+     * The table of a material without a file.
+     */
+    private static final ByteBuffer MISSING = ByteBuffer.allocate(0);
+
+    /**
+     * The directory of the table files.
+     */
+    private final Path directory;
+
+    /**
+     * The mapped table of each material (see {@link #material}),
+     * {@link #MISSING} if it has no file or null if it was not looked up yet.
+     */
+    private final AtomicReferenceArray<ByteBuffer> tables = new AtomicReferenceArray<>(1 << 16);
+
+    /**
+     * Class constructor.
+     *
+     * @param directory the directory of the table files.
+     */
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the directory of the table files.
+     *
+     * @return the directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Looks up the value of a game state. In the middle of a skip chain the
+     * value is the best of the turns that complete the chain.
+     *
+     * @param game the game.
+     * @return the value (see {@link #getDistance(int)}), {@link #DRAW} or
+     * {@link #UNKNOWN} if the tables do not cover the game state.
+     */
+    public int probe(Game game) {
+        if (game.getSkipIndex() == -1) {
+            return probe(game.getExactBoard(), game.isP1Turn());
+        }
+
+        TurnList turns = new TurnList();
+        Board board = game.getExactBoard();
+        boolean white = game.isP1Turn();
+        BitboardMoveGenerator.generateTurns(board, white, game.getSkipIndex(), turns);
+        int best = UNKNOWN;
+        int kings = board.getKingMask();
+        int[] child = new int[4];
+        for (int i = 0; i < turns.size(); i++) {
+            child(board.getWhiteMask() & ~kings, board.getWhiteMask() & kings,
+                    board.getBlackMask() & ~kings, board.getBlackMask() & kings, white, turns.get(i), child);
+            int value = probe(child[0], child[1], child[2], child[3], !white);
+            if (value == UNKNOWN) {
+                return UNKNOWN;
+            }
+            best = i == 0 ? negate(value) : better(best, negate(value));
+        }
+        return best;
+    }
+
+    /**
+     * Looks up the value of a board at the start of a turn.
+     *
+     * @param board the board.
+     * @param white true if white is to move.
+     * @return the value (see {@link #getDistance(int)}), {@link #DRAW} or
+     * {@link #UNKNOWN} if the tables do not cover the board.
+     */
+    public int probe(Board board, boolean white) {
+        int kings = board.getKingMask();
+        return probe(board.getWhiteMask() & ~kings, board.getWhiteMask() & kings,
+                board.getBlackMask() & ~kings, board.getBlackMask() & kings, white);
+    }
+
+    /**
+     * Looks up the value of a position given by the masks of its pieces.
+     *
+     * @param whiteCheckers the mask of white checkers.
+     * @param whiteKings the mask of white kings.
+     * @param blackCheckers the mask of black checkers.
+     * @param blackKings the mask of black kings.
+     * @param white true if white is to move.
+     * @return the value, {@link #DRAW} or {@link #UNKNOWN}.
+     */
+    int probe(int whiteCheckers, int whiteKings, int blackCheckers, int blackKings, boolean white) {
+        if ((white ? whiteCheckers | whiteKings : blackCheckers | blackKings) == 0) {
+            return 1;
+        }
+        int material = material(whiteCheckers, whiteKings, blackCheckers, blackKings);
+        ByteBuffer table = getTable(material);
+        if (table == null) {
+            return UNKNOWN;
+        }
+        int value = table.get((int) index(whiteCheckers, whiteKings, blackCheckers, blackKings, white)) & 0xFF;
+        return value == INVALID ? UNKNOWN : value;
+    }
+
+    /**
+     * Gets the table of a material, mapping its file on the first call.
+     *
+     * @param material the material (see {@link #material}).
+     * @return the table, or null if there is no file for the material.
+     */
+    ByteBuffer getTable(int material) {
+        ByteBuffer table = tables.get(material);
+        if (table == null) {
+            Path path = directory.resolve(fileName(material));
+            table = MISSING;
+            if (Files.isRegularFile(path)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            tables.set(material, table);
+        }
+        return table == MISSING ? null : table;
+    }
+
+    /**
+     * Forgets the table of a material, so that its file is looked up again.
+     * Used by the generator after writing the file.
+     *
+     * @param material the material.
+     */
+    void reload(int material) {
+        tables.set(material, null);
+    }
+
+    /**
+     * Checks if a value is a win of the side to move.
+     *
+     * @param value the value.
+     * @return true for a win.
+     */
+    public static boolean isWin(int value) {
+        return value > 0 && (value & 1) == 0;
+    }
+
+    /**
+     * Checks if a value is a loss of the side to move.
+     *
+     * @param value the value.
+     * @return true for a loss.
+     */
+    public static boolean isLoss(int value) {
+        return value > 0 && (value & 1) == 1;
+    }
+
+    /**
+     * Gets the distance of a win or loss.
+     *
+     * @param value the value.
+     * @return the number of turns to the end of the game.
+     */
+    public static int getDistance(int value) {
+        return value - 1;
+    }
+
+    /**
+     * Gets the value of a position for the player who made the turn to it.
+     *
+     * @param value the value for the side to move, not {@link #UNKNOWN}.
+     * @return the value one turn earlier, of the same distance plus one.
+     */
+    static int negate(int value) {
+        return value == DRAW ? DRAW : value + 1;
+    }
+
+    /**
+     * Chooses the better of two values for the side to move: the shortest
+     * win, then a draw, then the longest loss.
+     *
+     * @param a the first value.
+     * @param b the second value.
+     * @return the better value.
+     */
+    static int better(int a, int b) {
+        return rank(a) >= rank(b) ? a : b;
+    }
+
+    /**
+     * Orders values from the worst to the best for the side to move.
+     *
+     * @param value the value.
+     * @return a number that is larger for a better value.
+     */
+    private static int rank(int value) {
+        if (isWin(value)) {
+            return 1000 - value;
+        }
+        return isLoss(value) ? value - 1000 : 0;
+    }
+
+    /**
+     * Packs the numbers of each kind of piece into a material.
+     *
+     * @param whiteCheckers the mask of white checkers.
+     * @param whiteKings the mask of white kings.
+     * @param blackCheckers the mask of black checkers.
+     * @param blackKings the mask of black kings.
+     * @return the counts in 4 bits each, from white checkers to black kings.
+     */
+    static int material(int whiteCheckers, int whiteKings, int blackCheckers, int blackKings) {
+        return Integer.bitCount(whiteCheckers) | (Integer.bitCount(whiteKings) << 4)
+                | (Integer.bitCount(blackCheckers) << 8) | (Integer.bitCount(blackKings) << 12);
+    }
+
+    /**
+     * Gets the name of the file of a material, for example tb2011.bin for two
+     * white checkers, no white kings, one black checker and one black king.
+     *
+     * @param material the material.
+     * @return the file name.
+     */
+    static String fileName(int material) {
+        return "tb" + (material & 15) + ((material >> 4) & 15) + ((material >> 8) & 15)
+                + ((material >> 12) & 15) + ".bin";
+    }
+
+    /**
+     * Gets the number of indexes of a material.
+     *
+     * @param material the material.
+     * @return the size of its table in bytes.
+     */
+    static long size(int material) {
+        int wc = material & 15, wk = (material >> 4) & 15, bc = (material >> 8) & 15, bk = (material >> 12) & 15;
+        return BINOMIAL[28][wc] * BINOMIAL[32 - wc][bc] * BINOMIAL[32 - wc - bc][wk]
+                * BINOMIAL[32 - wc - bc - wk][bk] * 2;
+    }
+
+    /**
+     * Computes the index of a position in the table of its material.
+     *
+     * @param whiteCheckers the mask of white checkers.
+     * @param whiteKings the mask of white kings.
+     * @param blackCheckers the mask of black checkers.
+     * @param blackKings the mask of black kings.
+     * @param white true if white is to move.
+     * @return the index.
+     */
+    static long index(int whiteCheckers, int whiteKings, int blackCheckers, int blackKings, boolean white) {
+        int checkers = whiteCheckers | blackCheckers;
+        int empty = ~checkers & ~whiteKings;
+        long index = rank(whiteCheckers, WHITE_CHECKER_TILES);
+        index = index * BINOMIAL[32 - Integer.bitCount(whiteCheckers)][Integer.bitCount(blackCheckers)]
+                + rank(blackCheckers, ~whiteCheckers);
+        index = index * BINOMIAL[Integer.bitCount(~checkers)][Integer.bitCount(whiteKings)]
+                + rank(whiteKings, ~checkers);
+        index = index * BINOMIAL[Integer.bitCount(empty)][Integer.bitCount(blackKings)]
+                + rank(blackKings, empty);
+        return index * 2 + (white ? 0 : 1);
+    }
+
+    /**
+     * Decodes an index of the table of a material.
+     *
+     * @param material the material.
+     * @param index the index.
+     * @param out receives the masks of white checkers, white kings, black
+     * checkers and black kings.
+     * @return true if white is to move.
+     */
+    static boolean decode(int material, long index, int[] out) {
+        int wc = material & 15, wk = (material >> 4) & 15, bc = (material >> 8) & 15, bk = (material >> 12) & 15;
+        boolean white = (index & 1) == 0;
+        index >>>= 1;
+        long nbk = BINOMIAL[32 - wc - bc - wk][bk], nwk = BINOMIAL[32 - wc - bc][wk], nbc = BINOMIAL[32 - wc][bc];
+        int rbk = (int) (index % nbk);
+        index /= nbk;
+        int rwk = (int) (index % nwk);
+        index /= nwk;
+        int rbc = (int) (index % nbc);
+        int rwc = (int) (index / nbc);
+
+        out[0] = unrank(rwc, wc, WHITE_CHECKER_TILES);
+        out[2] = unrank(rbc, bc, ~out[0]);
+        out[1] = unrank(rwk, wk, ~(out[0] | out[2]));
+        out[3] = unrank(rbk, bk, ~(out[0] | out[2] | out[1]));
+        return white;
+    }
+
+    /**
+     * Ranks a set of tiles among the tiles of a mask, in colexicographic
+     * order.
+     *
+     * @param squares the set, a subset of the tiles.
+     * @param tiles the tiles.
+     * @return the rank, from 0 to the number of subsets of the same size.
+     */
+    private static long rank(int squares, int tiles) {
+        long rank = 0;
+        int k = 0;
+        for (int mask = squares; mask != 0; mask &= mask - 1) {
+            int i = Integer.numberOfTrailingZeros(mask);
+            rank += BINOMIAL[Integer.bitCount(tiles & ((1 << i) - 1))][++k];
+        }
+        return rank;
+    }
+
+    /**
+     * Finds the set of tiles of a rank (see {@link #rank(int, int)}).
+     *
+     * @param rank the rank.
+     * @param k the size of the set.
+     * @param tiles the tiles.
+     * @return the set.
+     */
+    private static int unrank(long rank, int k, int tiles) {
+        int squares = 0;
+        for (int i = k; i >= 1; i--) {
+            int c = i - 1;
+            while (BINOMIAL[c + 1][i] <= rank) {
+                c++;
+            }
+            rank -= BINOMIAL[c][i];
+            int mask = tiles;
+            for (int j = 0; j < c; j++) {
+                mask &= mask - 1;
+            }
+            squares |= Integer.lowestOneBit(mask);
+        }
+        return squares;
+    }
+
+    /**
+     * Computes the pieces after a turn.
+     *
+     * @param whiteCheckers the mask of white checkers.
+     * @param whiteKings the mask of white kings.
+     * @param blackCheckers the mask of black checkers.
+     * @param blackKings the mask of black kings.
+     * @param white true if white makes the turn.
+     * @param turn the packed turn (see {@link Turn}).
+     * @param out receives the masks of white checkers, white kings, black
+     * checkers and black kings after the turn.
+     */
+    static void child(int whiteCheckers, int whiteKings, int blackCheckers, int blackKings,
+            boolean white, long turn, int[] out) {
+        int from = 1 << Turn.getStart(turn), to = 1 << Turn.getEnd(turn), captured = Turn.getCaptured(turn);
+        int checkers = white ? whiteCheckers : blackCheckers, kings = white ? whiteKings : blackKings;
+        if ((checkers & from) != 0) {
+            checkers &= ~from;
+            int lastRow = white ? 0xF : BLACK_CHECKER_LAST_ROW;
+            if (Turn.isPromoted(turn) || (to & lastRow) != 0) {
+                kings |= to;
+            } else {
+                checkers |= to;
+            }
+        } else {
+            kings = (kings & ~from) | to;
+        }
+        out[0] = white ? checkers : whiteCheckers & ~captured;
+        out[1] = white ? kings : whiteKings & ~captured;
+        out[2] = white ? blackCheckers & ~captured : checkers;
+        out[3] = white ? blackKings & ~captured : kings;
+    }
+}
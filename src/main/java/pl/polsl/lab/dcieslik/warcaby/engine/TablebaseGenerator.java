@@ -0,0 +1,343 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Solves all endgames up to a number of pieces by retrograde analysis and
+ * writes the tables read by {@link Tablebase}. The positions are those at
+ * the start of a turn; a skip chain is one turn, so the game states in the
+ * middle of a chain are covered by the turns that complete it.
+ * <p>
+ * The materials are solved so that every turn that captures or promotes
+ * leads to a table that is already written: first by the number of pieces,
+ * then by the number of checkers. Within a material the turns of every
+ * position are generated once, in parallel, to look up the turns that leave
+ * the material and count the others. The values are then found level by
+ * level, going back from the positions solved at the level before: a
+ * position is a win in d turns if a turn leads to a loss in d - 1, and a loss
+ * in d if every turn leads to a win and the longest one takes d - 1. The
+ * turns that stay in the material move one piece by one step, so they are
+ * easy to take back. The positions left when no level can add anything, or
+ * that would need more than {@link Tablebase#MAX_DISTANCE} turns, are draws.
+ *
+ * @author Dawid Cieślik
+ */
+public class TablebaseGenerator {
+
+    /**
+     * The number of positions solved by one task.
+     */
+    private static final int CHUNK = 1 << 14;
+
+    /**
+     * The tables already written, read for the turns that leave a material.
+     */
+    private final Tablebase tablebase;
+
+    /**
+     * The largest number of pieces on the board.
+     */
+    private final int maxPieces;
+
+    /**
+     * Class constructor.
+     *
+     * @param directory the directory to write the tables to.
+     * @param maxPieces the largest number of pieces on the board.
+     */
+    public TablebaseGenerator(Path directory, int maxPieces) {
+        this.tablebase = new Tablebase(directory);
+        this.maxPieces = maxPieces;
+    }
+
+    /**
+     * Lists the materials with at least one piece of each side and at most
+     * a number of pieces, in the order they are solved in.
+     *
+     * @param maxPieces the largest number of pieces.
+     * @return the materials (see {@link Tablebase#fileName(int)}).
+     */
+    public static List<Integer> materials(int maxPieces) {
+        List<Integer> materials = new ArrayList<>();
+        for (int white = 1; white <= Math.min(12, maxPieces - 1); white++) {
+            for (int black = 1; black <= Math.min(12, maxPieces - white); black++) {
+                for (int wc = 0; wc <= white; wc++) {
+                    for (int bc = 0; bc <= black; bc++) {
+                        materials.add(wc | ((white - wc) << 4) | (bc << 8) | ((black - bc) << 12));
+                    }
+                }
+            }
+        }
+        materials.sort(Comparator.comparingInt((Integer m) -> pieces(m)).thenComparingInt(m -> checkers(m)));
+        return materials;
+    }
+
+    /**
+     * Writes the tables of all materials that do not have a file yet.
+     *
+     * @param listener the receiver of a line about each written table, or
+     * null.
+     * @throws IOException if a table cannot be written.
+     */
+    public void generate(Consumer<String> listener) throws IOException {
+        Files.createDirectories(tablebase.getDirectory());
+        for (int material : materials(maxPieces)) {
+            Path path = tablebase.getDirectory().resolve(Tablebase.fileName(material));
+            if (Files.exists(path)) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            byte[] table = solve(material);
+            Path temp = tablebase.getDirectory().resolve(Tablebase.fileName(material) + ".tmp");
+            Files.write(temp, table);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            tablebase.reload(material);
+
+            if (listener != null) {
+                long wins = 0, losses = 0, draws = 0;
+                for (byte b : table) {
+                    int value = b & 0xFF;
+                    if (value == Tablebase.DRAW) {
+                        draws++;
+                    } else if (Tablebase.isWin(value) && value != Tablebase.INVALID) {
+                        wins++;
+                    } else if (Tablebase.isLoss(value) && value != Tablebase.INVALID) {
+                        losses++;
+                    }
+                }
+                listener.accept(path.getFileName() + ": " + table.length + " positions, " + wins + " wins, "
+                        + losses + " losses, " + draws + " draws in " + (System.nanoTime() - start) / 1_000_000
+                        + " ms");
+            }
+        }
+    }
+
+    /**
+     * Solves the positions of a material. The tables of the materials it can
+     * capture or promote into must be written.
+     *
+     * @param material the material.
+     * @return the value of each index (see {@link Tablebase}).
+     */
+    byte[] solve(int material) {
+        long size = Tablebase.size(material);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Table too large: " + Tablebase.fileName(material));
+        }
+        byte[] table = new byte[(int) size];
+        byte[] remaining = new byte[table.length];
+        byte[] exits = new byte[table.length];
+        int chunks = (int) ((size + CHUNK - 1) / CHUNK);
+        int lastExit = IntStream.range(0, chunks).parallel()
+                .map(c -> initialize(material, table, remaining, exits, c))
+                .max().orElse(0);
+
+        int[] frontier = new int[64];
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == 1) {
+                frontier = add(frontier, count++, i);
+            }
+        }
+
+        Board board = new Board();
+        int[] pieces = new int[4], before = new int[4];
+        for (int d = 1; d <= Tablebase.MAX_DISTANCE && (count > 0 || d <= lastExit); d++) {
+            int[] next = new int[64];
+            int nextCount = 0;
+            for (int f = 0; f < count; f++) {
+                boolean white = !Tablebase.decode(material, frontier[f], pieces);
+                int movers = white ? pieces[0] | pieces[1] : pieces[2] | pieces[3];
+                for (int mask = movers; mask != 0; mask &= mask - 1) {
+                    int to = Integer.numberOfTrailingZeros(mask);
+                    boolean king = ((pieces[1] | pieces[3]) & (1 << to)) != 0;
+                    for (int dir = 0; dir < 4; dir++) {
+                        if (!king && (dir < 2) != white) {
+                            continue;
+                        }
+                        int from = Board.neighbour(to, dir);
+                        if (from < 0 || ((pieces[0] | pieces[1] | pieces[2] | pieces[3]) & (1 << from)) != 0) {
+                            continue;
+                        }
+                        int p = predecessor(board, pieces, white, to, from, before);
+                        if (p < 0 || table[p] != Tablebase.DRAW) {
+                            continue;
+                        }
+                        if ((d & 1) == 1) {
+                            table[p] = (byte) (d + 1);
+                            next = add(next, nextCount++, p);
+                        } else if (--remaining[p] == 0 && exits[p] != (byte) Tablebase.INVALID
+                                && (exits[p] & 0xFF) <= d) {
+                            table[p] = (byte) (d + 1);
+                            next = add(next, nextCount++, p);
+                        }
+                    }
+                }
+            }
+
+            if (d <= lastExit) {
+                for (int i = 0; i < table.length; i++) {
+                    if (table[i] == Tablebase.DRAW && (exits[i] & 0xFF) == d
+                            && ((d & 1) == 1 || remaining[i] == 0)) {
+                        table[i] = (byte) (d + 1);
+                        next = add(next, nextCount++, i);
+                    }
+                }
+            }
+            frontier = next;
+            count = nextCount;
+        }
+        return table;
+    }
+
+    /**
+     * Checks the values of the turns of a chunk of positions that leave the
+     * material and counts the other turns. Marks the indexes that are not
+     * positions and the positions without a legal turn, which are lost.
+     * <p>
+     * The exit of a position is the number of turns in which the turns that
+     * leave the material decide it: an odd number for the shortest win, an
+     * even one for the longest loss if all of them lose, and
+     * {@link Tablebase#INVALID} if one of them draws and none wins.
+     *
+     * @param material the material.
+     * @param table the values.
+     * @param remaining receives the number of turns that stay in the
+     * material.
+     * @param exits receives the exit of each position.
+     * @param chunk the number of the chunk.
+     * @return the largest exit other than {@link Tablebase#INVALID}.
+     */
+    private int initialize(int material, byte[] table, byte[] remaining, byte[] exits, int chunk) {
+        Board board = new Board();
+        TurnList turns = new TurnList();
+        int[] pieces = new int[4], child = new int[4];
+        int lastExit = 0;
+        for (int i = chunk * CHUNK, end = Math.min(table.length, i + CHUNK); i < end; i++) {
+            boolean white = Tablebase.decode(material, i, pieces);
+            if ((pieces[2] & Tablebase.BLACK_CHECKER_LAST_ROW) != 0) {
+                table[i] = (byte) Tablebase.INVALID;
+                continue;
+            }
+
+            board.setPlanes(pieces[3], pieces[2] | pieces[1], pieces[0] | pieces[1]);
+            turns.clear();
+            BitboardMoveGenerator.generateTurns(board, white, -1, turns);
+            if (turns.isEmpty()) {
+                table[i] = 1;
+                continue;
+            }
+
+            int inside = 0, best = 0;
+            boolean exited = false;
+            for (int t = 0; t < turns.size(); t++) {
+                Tablebase.child(pieces[0], pieces[1], pieces[2], pieces[3], white, turns.get(t), child);
+                if (Tablebase.material(child[0], child[1], child[2], child[3]) == material) {
+                    inside++;
+                    continue;
+                }
+                int value = Tablebase.negate(exitValue(child, !white));
+                best = exited ? Tablebase.better(best, value) : value;
+                exited = true;
+            }
+
+            int exit = !exited ? 0 : best == Tablebase.DRAW ? Tablebase.INVALID : best - 1;
+            exits[i] = (byte) exit;
+            remaining[i] = (byte) inside;
+            if (exit != Tablebase.INVALID) {
+                lastExit = Math.max(lastExit, exit);
+            }
+        }
+        return lastExit;
+    }
+
+    /**
+     * Finds the position before a turn that moved a piece by one step,
+     * without a capture or a promotion.
+     *
+     * @param board a board to check the position on.
+     * @param pieces the masks of white checkers, white kings, black checkers
+     * and black kings after the turn.
+     * @param white true if white made the turn.
+     * @param to the index the piece moved to.
+     * @param from the index the piece moved from.
+     * @param before receives the masks before the turn.
+     * @return the index of the position before the turn, or -1 if the turn
+     * was not legal there because a skip was possible.
+     */
+    private static int predecessor(Board board, int[] pieces, boolean white, int to, int from, int[] before) {
+        int move = (1 << to) | (1 << from);
+        for (int k = 0; k < 4; k++) {
+            before[k] = (pieces[k] & (1 << to)) != 0 ? pieces[k] ^ move : pieces[k];
+        }
+        board.setPlanes(before[3], before[2] | before[1], before[0] | before[1]);
+        if (board.hasAnyCapture(white)) {
+            return -1;
+        }
+        return (int) Tablebase.index(before[0], before[1], before[2], before[3], white);
+    }
+
+    /**
+     * Adds an index to a growing list.
+     *
+     * @param list the list.
+     * @param size the number of indexes in the list.
+     * @param index the index to add.
+     * @return the list, or a larger copy of it.
+     */
+    private static int[] add(int[] list, int size, int index) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size * 2);
+        }
+        list[size] = index;
+        return list;
+    }
+
+    /**
+     * Looks up the value of a position of a table already written.
+     *
+     * @param pieces the masks of white checkers, white kings, black checkers
+     * and black kings.
+     * @param white true if white is to move.
+     * @return the value.
+     */
+    private int exitValue(int[] pieces, boolean white) {
+        int value = tablebase.probe(pieces[0], pieces[1], pieces[2], pieces[3], white);
+        if (value == Tablebase.UNKNOWN) {
+            throw new IllegalStateException("Missing table "
+                    + Tablebase.fileName(Tablebase.material(pieces[0], pieces[1], pieces[2], pieces[3])));
+        }
+        return value;
+    }
+
+    /**
+     * Counts the pieces of a material.
+     *
+     * @param material the material.
+     * @return the number of pieces.
+     */
+    private static int pieces(int material) {
+        return (material & 15) + ((material >> 4) & 15) + ((material >> 8) & 15) + ((material >> 12) & 15);
+    }
+
+    /**
+     * Counts the checkers of a material.
+     *
+     * @param material the material.
+     * @return the number of checkers.
+     */
+    private static int checkers(int material) {
+        return (material & 15) + ((material >> 8) & 15);
+    }
+}
@@ -0,0 +1,387 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Plays the bots against each other without a window, every bot against
+ * every other one. The games of a pairing come in pairs: both games of a pair
+ * start with the same random turns, and each bot plays white in one of them,
+ * so neither the opening nor moving first favours a bot. A game ends when the
+ * side to move has no turn, which loses, or after {@link #MAX_PLIES} turns,
+ * which is a draw.
+ * <p>
+ * The games run on a pool of threads. Every thread creates its own bots from
+ * the factories, once, and tells them about each new game. Each bot of each
+ * thread gets a seed of its own, derived from the seed of the tournament, so
+ * a run on one thread plays the same games again with the same seed. At most
+ * a few games per thread are in flight, so a tournament of millions of games
+ * needs little memory, and every game is written to the file as soon as it
+ * ends, in the order the games end. A game is written in PDN: the players, the result
+ * with the points of white first ("2-0" if white won), a FEN tag giving white
+ * the first turn, the game state reached (see {@link Game#getGameState()}) and
+ * the turns, with the squares numbered from 1 to 32 in the order of the board
+ * indices.
+ *
+ * @author Dawid Cieślik
+ */
+public class Tournament {
+
+    /**
+     * The number of turns after which a game is a draw.
+     */
+    public static final int MAX_PLIES = 200;
+
+    /**
+     * The number of games per thread waiting for or being played.
+     */
+    private static final int GAMES_PER_THREAD = 4;
+
+    /**
+     * The length of a line of turns in the file.
+     */
+    private static final int LINE_LENGTH = 79;
+
+    /**
+     * The names of the bots.
+     */
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * The factories of the bots.
+     */
+    private final List<LongFunction<Bot>> factories = new ArrayList<>();
+
+    /**
+     * The number of random turns at the start of each game.
+     */
+    private final int randomPlies;
+
+    /**
+     * The seed of the random turns.
+     */
+    private long seed;
+
+    /**
+     * The number of games played by the last run.
+     */
+    private long games;
+
+    /**
+     * The number of turns of the games played by the last run.
+     */
+    private long plies;
+
+    /**
+     * The time taken by the last run, in nanoseconds.
+     */
+    private long nanos;
+
+    /**
+     * Class constructor.
+     *
+     * @param randomPlies the number of random turns at the start of each
+     * game.
+     */
+    public Tournament(int randomPlies) {
+        this.randomPlies = randomPlies;
+    }
+
+    /**
+     * Adds a bot to the tournament.
+     *
+     * @param name the name of the bot in the results.
+     * @param factory the factory of the bot, called once by each thread with
+     * the seed of the bot of that thread (see {@link #botSeed(int, int)}).
+     */
+    public void addBot(String name, LongFunction<Bot> factory) {
+        names.add(name);
+        factories.add(factory);
+    }
+
+    /**
+     * Sets the seed of the random turns and of the bots of the following
+     * runs.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Plays the games and writes them to a file.
+     *
+     * @param file the file of the games.
+     * @param gamesPerPairing the number of games of each pair of bots, made
+     * even so that each bot plays white as often.
+     * @param threads the number of threads.
+     * @return the result of each pair of bots, for the bot added first.
+     * @throws IOException if the file cannot be written.
+     */
+    public List<MatchResult> run(Path file, int gamesPerPairing, int threads) throws IOException {
+        int perPairing = (gamesPerPairing + 1) & ~1;
+        List<MatchResult> results = new ArrayList<>();
+        List<int[]> pairings = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = i + 1; j < names.size(); j++) {
+                results.add(new MatchResult(names.get(i), names.get(j)));
+                pairings.add(new int[]{i, j});
+            }
+        }
+
+        long start = System.nanoTime();
+        games = 0;
+        plies = 0;
+        long total = (long) pairings.size() * perPairing;
+        int window = Math.max(1, threads) * GAMES_PER_THREAD;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        CompletionService<Outcome> done = new ExecutorCompletionService<>(pool);
+        ThreadLocal<Bot[]> bots = ThreadLocal.withInitial(() -> new Bot[names.size()]);
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadLocal<Integer> ordinals = ThreadLocal.withInitial(threadCount::getAndIncrement);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            long submitted = 0;
+            for (; submitted < total && submitted < window; submitted++) {
+                submit(done, bots, ordinals, pairings, submitted, perPairing);
+            }
+            for (long received = 0; received < total; received++) {
+                Outcome outcome = done.take().get();
+                if (submitted < total) {
+                    submit(done, bots, ordinals, pairings, submitted++, perPairing);
+                }
+                results.get(outcome.pairing).add(outcome.firstPoints);
+                games++;
+                plies += outcome.plies;
+                out.write(outcome.pdn);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+            nanos = System.nanoTime() - start;
+        }
+        return results;
+    }
+
+    /**
+     * Submits a game to the pool.
+     *
+     * @param done the service of the pool.
+     * @param bots the bots of each thread.
+     * @param ordinals the number of each thread, in the order the threads
+     * started playing.
+     * @param pairings the two bots of each pairing.
+     * @param number the number of the game in the tournament.
+     * @param perPairing the number of games of each pairing.
+     */
+    private void submit(CompletionService<Outcome> done, ThreadLocal<Bot[]> bots, ThreadLocal<Integer> ordinals,
+            List<int[]> pairings, long number, int perPairing) {
+        int pairing = (int) (number / perPairing), round = (int) (number % perPairing);
+        int[] pair = pairings.get(pairing);
+        done.submit(() -> {
+            Bot[] own = bots.get();
+            for (int b : pair) {
+                if (own[b] == null) {
+                    own[b] = factories.get(b).apply(botSeed(b, ordinals.get()));
+                }
+            }
+            return play(pairing, round, own[pair[0]], own[pair[1]], names.get(pair[0]), names.get(pair[1]));
+        });
+    }
+
+    /**
+     * Gets the seed of a bot of a thread, which differs from bot to bot and
+     * from thread to thread.
+     *
+     * @param bot the number of the bot, in the order the bots were added.
+     * @param thread the number of the thread.
+     * @return the seed.
+     */
+    long botSeed(int bot, int thread) {
+        return new SplittableRandom(seed ^ (((long) thread << 32 | bot) * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    /**
+     * Plays one game.
+     *
+     * @param pairing the number of the pairing.
+     * @param round the number of the game in the pairing; the first bot is
+     * white in the even ones.
+     * @param first the first bot.
+     * @param second the second bot.
+     * @param firstName the name of the first bot.
+     * @param secondName the name of the second bot.
+     * @return the outcome of the game.
+     */
+    private Outcome play(int pairing, int round, Bot first, Bot second, String firstName, String secondName) {
+        boolean firstWhite = round % 2 == 0;
+        Bot white = firstWhite ? first : second, black = firstWhite ? second : first;
+        white.newGame();
+        black.newGame();
+
+        Game game = new Game();
+        String fen = fen(game);
+        SplittableRandom random = new SplittableRandom(seed + round / 2);
+        TurnList turns = new TurnList();
+        long[] played = new long[MAX_PLIES];
+        int ply = 0;
+        while (ply < MAX_PLIES && !game.isGameOver()) {
+            long turn;
+            if (ply < randomPlies) {
+                turns.clear();
+                BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(),
+                        turns);
+                turn = turns.get(random.nextInt(turns.size()));
+            } else {
+                turn = (game.isP1Turn() ? white : black).play(game);
+            }
+            game.makeTurn(turn);
+            played[ply++] = turn;
+        }
+
+        int whitePoints = !game.isGameOver() ? 1 : game.isP1Turn() ? 0 : 2;
+        String result = whitePoints + "-" + (2 - whitePoints);
+        StringBuilder pdn = new StringBuilder(1024);
+        pdn.append("[Event \"Tournament\"]\n");
+        pdn.append("[Round \"").append(pairing + 1).append('.').append(round + 1).append("\"]\n");
+        pdn.append("[White \"").append(firstWhite ? firstName : secondName).append("\"]\n");
+        pdn.append("[Black \"").append(firstWhite ? secondName : firstName).append("\"]\n");
+        pdn.append("[Result \"").append(result).append("\"]\n");
+        pdn.append("[FEN \"").append(fen).append("\"]\n");
+        pdn.append("[FinalState \"").append(game.getGameState()).append("\"]\n");
+        int lineStart = pdn.length();
+        for (int i = 0; i < ply; i++) {
+            String token = (i % 2 == 0 ? (i / 2 + 1) + ". " : "") + toPdn(played[i]);
+            if (pdn.length() - lineStart + token.length() >= LINE_LENGTH) {
+                pdn.append('\n');
+                lineStart = pdn.length();
+            } else if (pdn.length() > lineStart) {
+                pdn.append(' ');
+            }
+            pdn.append(token);
+        }
+        pdn.append(pdn.length() > lineStart ? " " : "").append(result).append("\n\n");
+
+        int firstPoints = firstWhite ? whitePoints : 2 - whitePoints;
+        return new Outcome(pairing, firstPoints, ply, pdn.toString());
+    }
+
+    /**
+     * Gets the PDN form of a turn, with the squares numbered from 1.
+     *
+     * @param turn the packed turn.
+     * @return the turn, for example "21-17" or "23x7".
+     */
+    static String toPdn(long turn) {
+        return (Turn.getStart(turn) + 1) + (Turn.getCaptured(turn) != 0 ? "x" : "-") + (Turn.getEnd(turn) + 1);
+    }
+
+    /**
+     * Gets the FEN tag of a game state, for example
+     * "W:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12".
+     *
+     * @param game the game.
+     * @return the value of the tag.
+     */
+    static String fen(Game game) {
+        StringBuilder white = new StringBuilder(), black = new StringBuilder();
+        Board board = game.getExactBoard();
+        for (int i = 0; i < 32; i++) {
+            int id = board.get(i);
+            if (id == Board.IDs.EMPTY.getID()) {
+                continue;
+            }
+            boolean isWhite = id == Board.IDs.WHITE_CHECKER.getID() || id == Board.IDs.WHITE_KING.getID();
+            boolean king = id == Board.IDs.WHITE_KING.getID() || id == Board.IDs.BLACK_KING.getID();
+            StringBuilder side = isWhite ? white : black;
+            side.append(side.length() == 0 ? "" : ",").append(king ? "K" : "").append(i + 1);
+        }
+        return (game.isP1Turn() ? "W" : "B") + ":W" + white + ":B" + black;
+    }
+
+    /**
+     * Gets the number of games played by the last run.
+     *
+     * @return the number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Gets the mean length of the games of the last run.
+     *
+     * @return the number of turns per game.
+     */
+    public double getAveragePlies() {
+        return games == 0 ? 0 : (double) plies / games;
+    }
+
+    /**
+     * Gets the speed of the last run.
+     *
+     * @return the number of games per second.
+     */
+    public double getGamesPerSecond() {
+        return games / Math.max(nanos / 1e9, 1e-9);
+    }
+
+    /**
+     * The outcome of a game, as sent from the thread that played it.
+     */
+    private static class Outcome {
+
+        /**
+         * The number of the pairing.
+         */
+        private final int pairing;
+
+        /**
+         * The points of the first bot of the pairing.
+         */
+        private final int firstPoints;
+
+        /**
+         * The number of turns of the game.
+         */
+        private final int plies;
+
+        /**
+         * The game in PDN.
+         */
+        private final String pdn;
+
+        /**
+         * Class constructor.
+         *
+         * @param pairing the number of the pairing.
+         * @param firstPoints the points of the first bot of the pairing.
+         * @param plies the number of turns of the game.
+         * @param pdn the game in PDN.
+         */
+        Outcome(int pairing, int firstPoints, int plies, String pdn) {
+            this.pairing = pairing;
+            this.firstPoints = firstPoints;
+            this.plies = plies;
+            this.pdn = pdn;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+import pl.polsl.lab.dcieslik.warcaby.model.Turn;
+
+/**
+ * A fixed-size hash table of search results, keyed by the Zobrist key of the
+ * game state (see {@link pl.polsl.lab.dcieslik.warcaby.model.Game#getKey()}).
+ * The table lives off the Java heap in a direct buffer of 16-byte buckets,
+ * each holding the key xor the data and the data. Any number of threads can
+ * read and write it without locks: a bucket torn by two writers no longer
+ * xors back to its key and is ignored.
+ * <p>
+ * The data of an entry packs the score in bits 0 - 15, the depth in bits 16 -
+ * 23, the bound in bits 24 - 25, the age in bits 26 - 31 and the move (see
+ * {@link #encodeMove(long)}) in bits 32 - 63. Each key can be stored in two
+ * neighbouring buckets; a new entry replaces the one of an older search or
+ * of a smaller depth.
+ *
+ * @author Dawid Cieślik
+ */
+public class TranspositionTable {
+
+    /**
+     * The bound of a score that is at most the real score.
+     */
+    public static final int LOWER = 1;
+
+    /**
+     * The bound of a score that is at least the real score.
+     */
+    public static final int UPPER = 2;
+
+    /**
+     * The bound of an exact score.
+     */
+    public static final int EXACT = 3;
+
+    /**
+     * The number of bytes of a bucket.
+     */
+    private static final int BUCKET_SIZE = 16;
+
+    /**
+     * The largest size of the table, the most a single direct buffer can hold.
+     */
+    public static final int MAX_MEGABYTES = 1024;
+
+    /**
+     * The mask of the black tiles that can hold a skipped checker: all but
+     * the first and last row and the left and right edge.
+     */
+    private static final int INNER = ~(0xF000000F | 0x10101010 | 0x08080808);
+
+    /**
+     * The rank of each black tile among the tiles of {@link #INNER}.
+     */
+    private static final int[] INNER_RANK = new int[32];
+
+    static {
+        for (int i = 0, rank = 0; i < 32; i++) {
+            if ((INNER & (1 << i)) != 0) {
+                INNER_RANK[i] = rank++;
+            }
+        }
+    }
+
+    /**
+     * The buckets of the table.
+     */
+    private final ByteBuffer buckets;
+
+    /**
+     * The mask of a bucket number.
+     */
+    private final long mask;
+
+    /**
+     * The age of the current search, from 0 to 63.
+     */
+    private int age;
+
+    /**
+     * The number of probes.
+     */
+    private final LongAdder probes = new LongAdder();
+
+    /**
+     * The number of probes that found their key.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * The number of stores.
+     */
+    private final LongAdder stores = new LongAdder();
+
+    /**
+     * The number of stores that replaced an entry of another key.
+     */
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * Class constructor.
+     *
+     * @param megabytes the size of the table in megabytes, rounded down to a
+     * power of two (from 1 to {@link #MAX_MEGABYTES}).
+     */
+    public TranspositionTable(int megabytes) {
+        int mb = Integer.highestOneBit(Math.max(1, Math.min(megabytes, MAX_MEGABYTES)));
+        long count = (long) mb * 1024 * 1024 / BUCKET_SIZE;
+        this.buckets = ByteBuffer.allocateDirect((int) Math.min(count * BUCKET_SIZE, Integer.MAX_VALUE & ~15))
+                .order(ByteOrder.nativeOrder());
+        this.mask = buckets.capacity() / BUCKET_SIZE - 1;
+    }
+
+    /**
+     * Gets the size of the table.
+     *
+     * @return the number of buckets.
+     */
+    public long getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public void clear() {
+        for (int i = 0; i < buckets.capacity(); i += 8) {
+            buckets.putLong(i, 0);
+        }
+        this.age = 0;
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        collisions.reset();
+    }
+
+    /**
+     * Starts a new search, so that the entries of older searches are
+     * replaced first.
+     */
+    public void newSearch() {
+        this.age = (age + 1) & 63;
+    }
+
+    /**
+     * Finds the entry of a key.
+     *
+     * @param key the Zobrist key of the game state.
+     * @return the data of the entry, or 0 if the key is not in the table.
+     */
+    public long probe(long key) {
+        probes.increment();
+        int first = bucket(key);
+        for (int b = first; b <= first + BUCKET_SIZE; b += BUCKET_SIZE) {
+            long data = buckets.getLong(b + 8);
+            if ((buckets.getLong(b) ^ data) == key && data != 0) {
+                hits.increment();
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param key the Zobrist key of the game state.
+     * @param move the best move (see {@link #encodeMove(long)}), or 0.
+     * @param score the score.
+     * @param depth the depth of the search (from 0 to 255).
+     * @param bound the bound of the score: {@link #LOWER}, {@link #UPPER} or
+     * {@link #EXACT}.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        stores.increment();
+        int first = bucket(key), target = -1;
+        int worst = Integer.MAX_VALUE;
+        for (int b = first; b <= first + BUCKET_SIZE; b += BUCKET_SIZE) {
+            long data = buckets.getLong(b + 8);
+            if (data == 0 || (buckets.getLong(b) ^ data) == key) {
+                if (move == 0 && data != 0) {
+                    move = getMove(data);
+                }
+                target = b;
+                break;
+            }
+
+            worst = Math.min(worst, getValue(b));
+        }
+        if (target < 0) {
+            if (worst > depth) {
+                return;
+            }
+            target = worst == getValue(first) ? first : first + BUCKET_SIZE;
+            collisions.increment();
+        }
+
+        long data = (score & 0xFFFFL) | ((long) (depth & 0xFF) << 16) | ((long) bound << 24)
+                | ((long) age << 26) | ((long) move << 32);
+        buckets.putLong(target, key ^ data);
+        buckets.putLong(target + 8, data);
+    }
+
+    /**
+     * Gets the replacement value of the entry in a bucket: its depth, less
+     * 256 if it was stored by an older search.
+     *
+     * @param b the byte offset of the bucket.
+     * @return the value, the lowest is replaced first.
+     */
+    private int getValue(int b) {
+        long data = buckets.getLong(b + 8);
+        return getDepth(data) - (getAge(data) == age ? 0 : 256);
+    }
+
+    /**
+     * Gets the position of the first bucket of a key. The second one follows
+     * it, in the same cache line.
+     *
+     * @param key the Zobrist key.
+     * @return the byte offset of the bucket.
+     */
+    private int bucket(long key) {
+        return (int) (key & mask & ~1L) * BUCKET_SIZE;
+    }
+
+    /**
+     * Encodes a packed turn into 28 bits: the start index, the end index and
+     * the skipped checkers, which can only stand on the 18 inner tiles.
+     *
+     * @param turn the packed turn (see {@link Turn}).
+     * @return the encoded move, never 0.
+     */
+    public static int encodeMove(long turn) {
+        int inner = 0;
+        for (int captured = Turn.getCaptured(turn); captured != 0; captured &= captured - 1) {
+            inner |= 1 << INNER_RANK[Integer.numberOfTrailingZeros(captured)];
+        }
+        return Turn.getStart(turn) | (Turn.getEnd(turn) << 5) | (inner << 10) | (1 << 28);
+    }
+
+    /**
+     * Gets the score of an entry.
+     *
+     * @param data the data of the entry.
+     * @return the score.
+     */
+    public static int getScore(long data) {
+        return (short) data;
+    }
+
+    /**
+     * Gets the depth of an entry.
+     *
+     * @param data the data of the entry.
+     * @return the depth.
+     */
+    public static int getDepth(long data) {
+        return (int) (data >>> 16) & 0xFF;
+    }
+
+    /**
+     * Gets the bound of an entry.
+     *
+     * @param data the data of the entry.
+     * @return {@link #LOWER}, {@link #UPPER} or {@link #EXACT}.
+     */
+    public static int getBound(long data) {
+        return (int) (data >>> 24) & 3;
+    }
+
+    /**
+     * Gets the age of an entry.
+     *
+     * @param data the data of the entry.
+     * @return the age of the search that stored it.
+     */
+    private static int getAge(long data) {
+        return (int) (data >>> 26) & 63;
+    }
+
+    /**
+     * Gets the move of an entry.
+     *
+     * @param data the data of the entry.
+     * @return the encoded move (see {@link #encodeMove(long)}), or 0.
+     */
+    public static int getMove(long data) {
+        return (int) (data >>> 32);
+    }
+
+    /**
+     * Gets the number of probes.
+     *
+     * @return the number of probes.
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Gets the number of probes that found their key.
+     *
+     * @return the number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of stores.
+     *
+     * @return the number of stores.
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Gets the number of stores that replaced the entry of another key.
+     *
+     * @return the number of collisions.
+     */
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    /**
+     * Gets a readable summary of the counters.
+     *
+     * @return the counters as a string.
+     */
+    @Override
+    public String toString() {
+        long p = getProbes();
+        return "tt " + (getCapacity() * BUCKET_SIZE >> 20) + " MB, probes " + p + ", hits " + getHits()
+                + " (" + (p == 0 ? 0 : getHits() * 100 / p) + "%), stores " + getStores()
+                + ", collisions " + getCollisions();
+    }
+}
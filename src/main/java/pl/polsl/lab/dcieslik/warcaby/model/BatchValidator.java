@@ -0,0 +1,208 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Validates many moves of many game states at once. The game states are given
+ * in the packed form of {@link Game#getStateHigh()} and
+ * {@link Game#getStateLow()}, two longs each, and the moves as packed moves
+ * (see {@link Move}) grouped by game state: the moves of state p are
+ * moves[first[p]] to moves[first[p + 1] - 1]. The legal moves of each game
+ * state, including the forced skips, are generated once and every move of
+ * the group is checked against them. A move is valid if its start and end
+ * index match a legal move, as in {@link MoveLogic#isValidMove}.
+ *
+ * @author Dawid Cieślik
+ */
+public final class BatchValidator {
+
+    /**
+     * The smallest number of moves validated by one task of a fork-join pool.
+     */
+    private static final int THRESHOLD = 4096;
+
+    /**
+     * Utility class, no instances.
+     */
+    private BatchValidator() {
+    }
+
+    /**
+     * Validates grouped moves of packed game states on the calling thread.
+     *
+     * @param states the packed game states, two longs per state.
+     * @param first the position of the first move of each state, with one more
+     * entry holding the number of moves.
+     * @param moves the packed moves.
+     * @return a bitset with bit i of word i / 64 set if moves[i] is valid.
+     */
+    public static long[] validate(long[] states, int[] first, int[] moves) {
+        long[] valid = new long[(moves.length + 63) >>> 6];
+        validate(states, first, moves, 0, moves.length, valid);
+        return valid;
+    }
+
+    /**
+     * Validates grouped moves of packed game states, splitting large batches
+     * into tasks of a fork-join pool.
+     *
+     * @param states the packed game states, two longs per state.
+     * @param first the position of the first move of each state, with one more
+     * entry holding the number of moves.
+     * @param moves the packed moves.
+     * @param pool the pool to run the tasks on.
+     * @return a bitset with bit i of word i / 64 set if moves[i] is valid.
+     */
+    public static long[] validate(long[] states, int[] first, int[] moves, ForkJoinPool pool) {
+        long[] valid = new long[(moves.length + 63) >>> 6];
+        pool.invoke(new ValidateTask(states, first, moves, 0, moves.length, valid));
+        return valid;
+    }
+
+    /**
+     * Checks if a move is marked valid in a bitset returned by
+     * {@link #validate(long[], int[], int[])}.
+     *
+     * @param valid the bitset.
+     * @param i the position of the move.
+     * @return true if the move is valid.
+     */
+    public static boolean isValid(long[] valid, int i) {
+        return (valid[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * Validates the moves in a range. Every game state with a move in the
+     * range is decoded and generated once.
+     *
+     * @param states the packed game states, two longs per state.
+     * @param first the position of the first move of each state.
+     * @param moves the packed moves.
+     * @param from the position of the first move to validate.
+     * @param to the position after the last move to validate.
+     * @param valid the bitset to set the bits of the valid moves in.
+     */
+    private static void validate(long[] states, int[] first, int[] moves, int from, int to, long[] valid) {
+        Board board = new Board();
+        MoveList legal = new MoveList();
+        long[] pairs = new long[16];
+        for (int p = findState(first, from); p + 1 < first.length && first[p] < to; p++) {
+            int start = Math.max(first[p], from), end = Math.min(first[p + 1], to);
+            if (start >= end) {
+                continue;
+            }
+
+            long high = states[2 * p], low = states[2 * p + 1];
+            board.setPlanes((int) high, (int) (high >>> 32), (int) low);
+            legal.clear();
+            BitboardMoveGenerator.generateLegal(board, Game.isP1Turn(low), Game.getSkipIndex(low), legal);
+            for (int i = 0; i < legal.size(); i++) {
+                int pair = Move.getStart(legal.get(i)) * 32 + Move.getEnd(legal.get(i));
+                pairs[pair >>> 6] |= 1L << pair;
+            }
+
+            for (int i = start; i < end; i++) {
+                int pair = Move.getStart(moves[i]) * 32 + Move.getEnd(moves[i]);
+                if ((pairs[pair >>> 6] & (1L << pair)) != 0) {
+                    valid[i >>> 6] |= 1L << i;
+                }
+            }
+
+            for (int i = 0; i < legal.size(); i++) {
+                int pair = Move.getStart(legal.get(i)) * 32 + Move.getEnd(legal.get(i));
+                pairs[pair >>> 6] = 0;
+            }
+        }
+    }
+
+    /**
+     * Finds the game state holding the move at a position.
+     *
+     * @param first the position of the first move of each state.
+     * @param move the position of the move.
+     * @return the index of the last state whose first move is not after the
+     * move.
+     */
+    private static int findState(int[] first, int move) {
+        int low = 0, high = first.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (first[mid] <= move) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Validates a range of moves, splitting it in two while it is large. The
+     * ranges are split on multiples of 64, so that no two tasks write the same
+     * word of the bitset.
+     */
+    private static class ValidateTask extends RecursiveAction {
+
+        /**
+         * The packed game states.
+         */
+        private final long[] states;
+
+        /**
+         * The position of the first move of each state.
+         */
+        private final int[] first;
+
+        /**
+         * The packed moves.
+         */
+        private final int[] moves;
+
+        /**
+         * The position of the first move to validate.
+         */
+        private final int from;
+
+        /**
+         * The position after the last move to validate.
+         */
+        private final int to;
+
+        /**
+         * The bitset of the valid moves.
+         */
+        private final long[] valid;
+
+        /**
+         * Class constructor.
+         *
+         * @param states the packed game states.
+         * @param first the position of the first move of each state.
+         * @param moves the packed moves.
+         * @param from the position of the first move to validate.
+         * @param to the position after the last move to validate.
+         * @param valid the bitset of the valid moves.
+         */
+        ValidateTask(long[] states, int[] first, int[] moves, int from, int to, long[] valid) {
+            this.states = states;
+            this.first = first;
+            this.moves = moves;
+            this.from = from;
+            this.to = to;
+            this.valid = valid;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                validate(states, first, moves, from, to, valid);
+                return;
+            }
+
+            int mid = ((from + to) >>> 1) & ~63;
+            invokeAll(new ValidateTask(states, first, moves, from, mid, valid),
+                    new ValidateTask(states, first, moves, mid, to, valid));
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+/**
+ * Generates moves and skips for a whole side at once by shifting the occupancy
+ * masks of the board. Bit i of a mask corresponds to the black tile with index
+ * i, so a step along a diagonal is a shift by 3, 4 or 5 depending on the parity
+ * of the row. Moves are written as packed ints (see {@link Move}) into a
+ * {@link MoveList}, in the same order as {@link MoveGenerator} returns them.
+ * Whole turns, including every skip of a multiple skip, are written as packed
+ * longs (see {@link Turn}) into a {@link TurnList}.
+ *
+ * @author Dawid Cieślik
+ */
+public class BitboardMoveGenerator {
+
+    /**
+     * The direction towards (x + 1, y + 1).
+     */
+    public static final int DOWN_RIGHT = 0;
+
+    /**
+     * The direction towards (x - 1, y + 1).
+     */
+    public static final int DOWN_LEFT = 1;
+
+    /**
+     * The direction towards (x + 1, y - 1).
+     */
+    public static final int UP_RIGHT = 2;
+
+    /**
+     * The direction towards (x - 1, y - 1).
+     */
+    public static final int UP_LEFT = 3;
+
+    /**
+     * The indexes in rows 0, 2, 4 and 6.
+     */
+    private static final int EVEN_ROWS = 0x0F0F0F0F;
+
+    /**
+     * The indexes in rows 1, 3, 5 and 7.
+     */
+    private static final int ODD_ROWS = 0xF0F0F0F0;
+
+    /**
+     * The indexes with x equal to 0 (the left edge of the board).
+     */
+    private static final int LEFT_EDGE = 0x10101010;
+
+    /**
+     * The indexes with x equal to 7 (the right edge of the board).
+     */
+    private static final int RIGHT_EDGE = 0x08080808;
+
+    /**
+     * Shifts every index of a mask one step in the specified direction. Steps
+     * that would leave the board are dropped.
+     *
+     * @param mask the mask of indexes.
+     * @param dir the direction of the step (from 0 to 3).
+     * @return the mask of indexes after the step.
+     */
+    public static int shift(int mask, int dir) {
+        switch (dir) {
+            case DOWN_RIGHT:
+                return ((mask & EVEN_ROWS & ~RIGHT_EDGE) << 5) | ((mask & ODD_ROWS) << 4);
+            case DOWN_LEFT:
+                return ((mask & EVEN_ROWS) << 4) | ((mask & ODD_ROWS & ~LEFT_EDGE) << 3);
+            case UP_RIGHT:
+                return ((mask & EVEN_ROWS & ~RIGHT_EDGE) >>> 3) | ((mask & ODD_ROWS) >>> 4);
+            case UP_LEFT:
+                return ((mask & EVEN_ROWS) >>> 4) | ((mask & ODD_ROWS & ~LEFT_EDGE) >>> 5);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Gets the index one step from the specified index. The step must stay on
+     * the board.
+     *
+     * @param index the start index (from 0 to 31).
+     * @param dir the direction of the step (from 0 to 3).
+     * @return the index after the step.
+     */
+    private static int step(int index, int dir) {
+        return Board.neighbour(index, dir);
+    }
+
+    /**
+     * Gets the pieces of a side that are allowed to move in the specified
+     * direction: checkers only move forward, kings move both ways.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param dir the direction (from 0 to 3).
+     * @return the mask of pieces.
+     */
+    private static int pieces(Board board, boolean white, int dir) {
+        int own = white ? board.getWhiteMask() : board.getBlackMask();
+        boolean forward = white ? dir >= UP_RIGHT : dir < UP_RIGHT;
+        return forward ? own : own & board.getKingMask();
+    }
+
+    /**
+     * Gets the pieces of a side that can move one step in a direction.
+     *
+     * @param board the game board.
+     * @param pieces the pieces to test.
+     * @param dir the direction (from 0 to 3).
+     * @return the mask of pieces with an empty tile in that direction.
+     */
+    private static int movers(Board board, int pieces, int dir) {
+        return pieces & shift(board.getEmptyMask(), UP_LEFT - dir);
+    }
+
+    /**
+     * Gets the pieces of a side that can skip in a direction.
+     *
+     * @param board the game board.
+     * @param pieces the pieces to test.
+     * @param opponent the mask of opponent pieces.
+     * @param dir the direction (from 0 to 3).
+     * @return the mask of pieces that can skip over an opponent in that
+     * direction.
+     */
+    private static int skippers(Board board, int pieces, int opponent, int dir) {
+        int back = UP_LEFT - dir;
+        return pieces & shift(opponent & shift(board.getEmptyMask(), back), back);
+    }
+
+    /**
+     * Gets the mask of pieces of a side which have at least one move.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @return the mask of pieces which can move.
+     */
+    public static int getMovers(Board board, boolean white) {
+        int mask = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            mask |= movers(board, pieces(board, white, dir), dir);
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the mask of pieces of a side which have at least one skip.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @return the mask of pieces which can skip.
+     */
+    public static int getSkippers(Board board, boolean white) {
+        int opponent = white ? board.getBlackMask() : board.getWhiteMask();
+        int mask = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            mask |= skippers(board, pieces(board, white, dir), opponent, dir);
+        }
+        return mask;
+    }
+
+    /**
+     * Generates all moves of a side, ordered by start index.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param out the list to add the packed moves to.
+     * @return the number of moves added.
+     */
+    public static int generateMoves(Board board, boolean white, MoveList out) {
+        return generateMoves(board, white, -1, out);
+    }
+
+    /**
+     * Generates all moves of a side, or of a single checker.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param from the mask of pieces to generate for.
+     * @param out the list to add the packed moves to.
+     * @return the number of moves added.
+     */
+    private static int generateMoves(Board board, boolean white, int from, MoveList out) {
+        int m0 = movers(board, pieces(board, white, DOWN_RIGHT) & from, DOWN_RIGHT);
+        int m1 = movers(board, pieces(board, white, DOWN_LEFT) & from, DOWN_LEFT);
+        int m2 = movers(board, pieces(board, white, UP_RIGHT) & from, UP_RIGHT);
+        int m3 = movers(board, pieces(board, white, UP_LEFT) & from, UP_LEFT);
+        int count = 0;
+        for (int all = m0 | m1 | m2 | m3; all != 0; all &= all - 1) {
+            int i = Integer.numberOfTrailingZeros(all), bit = 1 << i;
+            if ((m0 & bit) != 0) {
+                out.add(Move.of(i, step(i, DOWN_RIGHT)));
+                count++;
+            }
+            if ((m1 & bit) != 0) {
+                out.add(Move.of(i, step(i, DOWN_LEFT)));
+                count++;
+            }
+            if ((m2 & bit) != 0) {
+                out.add(Move.of(i, step(i, UP_RIGHT)));
+                count++;
+            }
+            if ((m3 & bit) != 0) {
+                out.add(Move.of(i, step(i, UP_LEFT)));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Generates all skips of a side, ordered by start index.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param out the list to add the packed skips to.
+     * @return the number of skips added.
+     */
+    public static int generateSkips(Board board, boolean white, MoveList out) {
+        return generateSkips(board, white, -1, out);
+    }
+
+    /**
+     * Generates all skips of a side, or of a single checker.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param from the mask of pieces to generate for.
+     * @param out the list to add the packed skips to.
+     * @return the number of skips added.
+     */
+    private static int generateSkips(Board board, boolean white, int from, MoveList out) {
+        int opponent = white ? board.getBlackMask() : board.getWhiteMask();
+        int count = 0;
+        int s0 = skippers(board, pieces(board, white, DOWN_RIGHT) & from, opponent, DOWN_RIGHT);
+        int s1 = skippers(board, pieces(board, white, DOWN_LEFT) & from, opponent, DOWN_LEFT);
+        int s2 = skippers(board, pieces(board, white, UP_RIGHT) & from, opponent, UP_RIGHT);
+        int s3 = skippers(board, pieces(board, white, UP_LEFT) & from, opponent, UP_LEFT);
+        for (int all = s0 | s1 | s2 | s3; all != 0; all &= all - 1) {
+            int i = Integer.numberOfTrailingZeros(all), bit = 1 << i;
+            if ((s0 & bit) != 0) {
+                count += addSkip(out, i, DOWN_RIGHT);
+            }
+            if ((s1 & bit) != 0) {
+                count += addSkip(out, i, DOWN_LEFT);
+            }
+            if ((s2 & bit) != 0) {
+                count += addSkip(out, i, UP_RIGHT);
+            }
+            if ((s3 & bit) != 0) {
+                count += addSkip(out, i, UP_LEFT);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds a skip from the specified index.
+     *
+     * @param out the list to add the packed skip to.
+     * @param index the start index of the skip.
+     * @param dir the direction of the skip.
+     * @return the number of skips added (always 1).
+     */
+    private static int addSkip(MoveList out, int index, int dir) {
+        int mid = step(index, dir);
+        out.add(Move.skip(index, step(mid, dir), mid));
+        return 1;
+    }
+
+    /**
+     * Generates the moves of the checker at the specified index.
+     *
+     * @param board the game board.
+     * @param index the index of the checker (from 0 to 31).
+     * @param out the list to add the packed moves to.
+     * @return the number of moves added.
+     */
+    public static int generateMoves(Board board, int index, MoveList out) {
+        if (board == null || !Board.isValidIndex(index)) {
+            return 0;
+        }
+        boolean white = (board.getWhiteMask() & (1 << index)) != 0;
+        return generateMoves(board, white, 1 << index, out);
+    }
+
+    /**
+     * Generates the skips of the checker at the specified index.
+     *
+     * @param board the game board.
+     * @param index the index of the checker (from 0 to 31).
+     * @param out the list to add the packed skips to.
+     * @return the number of skips added.
+     */
+    public static int generateSkips(Board board, int index, MoveList out) {
+        if (board == null || !Board.isValidIndex(index)) {
+            return 0;
+        }
+        boolean white = (board.getWhiteMask() & (1 << index)) != 0;
+        return generateSkips(board, white, 1 << index, out);
+    }
+
+    /**
+     * Generates all legal moves of a side: the skips if any checker can skip,
+     * otherwise the moves. During a multiple skip only the checker that made
+     * the last skip may move.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param skipIndex the index of the last skip this turn, or -1.
+     * @param out the list to add the packed moves to.
+     * @return the number of moves added.
+     */
+    public static int generateLegal(Board board, boolean white, int skipIndex, MoveList out) {
+        int from = -1;
+        if (Board.isValidIndex(skipIndex)) {
+            from = 1 << skipIndex;
+        }
+
+        if (board.hasAnyCapture(white)) {
+            return generateSkips(board, white, from, out);
+        }
+        return generateMoves(board, white, from, out);
+    }
+
+    /**
+     * Generates all legal turns of a side. If any checker can skip, every
+     * complete sequence of skips is one turn; a checker that becomes a king
+     * continues skipping as a king. Otherwise every single move is a turn.
+     * During a multiple skip only the checker that made the last skip may
+     * move.
+     *
+     * @param board the game board.
+     * @param white true for the white side.
+     * @param skipIndex the index of the last skip this turn, or -1.
+     * @param out the list to add the packed turns to.
+     * @return the number of turns added.
+     */
+    public static int generateTurns(Board board, boolean white, int skipIndex, TurnList out) {
+        int from = -1;
+        if (Board.isValidIndex(skipIndex)) {
+            from = 1 << skipIndex;
+        }
+
+        int size = out.size();
+        int skippers = board.getCapturers(white);
+        if (skippers != 0) {
+            skippers &= from;
+            int opponent = white ? board.getBlackMask() : board.getWhiteMask();
+            for (; skippers != 0; skippers &= skippers - 1) {
+                int i = Integer.numberOfTrailingZeros(skippers), bit = 1 << i;
+                boolean king = (board.getKingMask() & bit) != 0;
+                addChains(out, size, white, i, bit, king, false, opponent,
+                        board.getEmptyMask() | bit, 0);
+            }
+            return out.size() - size;
+        }
+
+        for (int dir = 0; dir < 4; dir++) {
+            int movers = movers(board, pieces(board, white, dir) & from, dir);
+            for (; movers != 0; movers &= movers - 1) {
+                int i = Integer.numberOfTrailingZeros(movers);
+                boolean promoted = (board.getKingMask() & (1 << i)) == 0
+                        && isLastRow(white, step(i, dir));
+                out.add(Turn.of(i, step(i, dir), 0, promoted));
+            }
+        }
+        return out.size() - size;
+    }
+
+    /**
+     * Adds every complete sequence of skips continuing from a tile.
+     *
+     * @param out the list to add the packed turns to.
+     * @param first the position in the list of the first turn of this
+     * generation, used to skip duplicates.
+     * @param white true for the white side.
+     * @param start the start index of the turn.
+     * @param at the mask of the tile the checker is on.
+     * @param king true if the checker is a king.
+     * @param promoted true if the checker became a king during the turn.
+     * @param opponent the mask of opponent checkers not skipped yet.
+     * @param empty the mask of empty tiles, including the start tile and the
+     * skipped checkers.
+     * @param captured the mask of the skipped checkers.
+     */
+    private static void addChains(TurnList out, int first, boolean white, int start, int at,
+            boolean king, boolean promoted, int opponent, int empty, int captured) {
+        boolean extended = false;
+        for (int dir = 0; dir < 4; dir++) {
+            if (!king && (white ? dir < UP_RIGHT : dir >= UP_RIGHT)) {
+                continue;
+            }
+
+            int mid = shift(at, dir) & opponent;
+            int land = shift(mid, dir) & empty;
+            if (land == 0) {
+                continue;
+            }
+
+            extended = true;
+            boolean crowned = !king && isLastRow(white, Integer.numberOfTrailingZeros(land));
+            addChains(out, first, white, start, land, king || crowned, promoted || crowned,
+                    opponent & ~mid, (empty | mid | at) & ~land, captured | mid);
+        }
+
+        if (!extended && captured != 0) {
+            long turn = Turn.of(start, Integer.numberOfTrailingZeros(at), captured, promoted);
+            for (int i = first; i < out.size(); i++) {
+                if (out.get(i) == turn) {
+                    return;
+                }
+            }
+            out.add(turn);
+        }
+    }
+
+    /**
+     * Checks if an index is on the row where checkers of a side become kings.
+     *
+     * @param white true for the white side.
+     * @param index the index (from 0 to 31).
+     * @return true if a checker of the side is crowned on that index.
+     */
+    private static boolean isLastRow(boolean white, int index) {
+        return white ? index < 4 : index > 27;
+    }
+}
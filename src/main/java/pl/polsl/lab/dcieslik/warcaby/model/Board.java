@@ -2,7 +2,9 @@ package pl.polsl.lab.dcieslik.warcaby.model;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * Represents a game state of Checkers.
@@ -64,11 +66,111 @@ public class Board {
         }
     }
 
+    /**
+     * The x-coordinate of each index.
+     */
+    private static final int[] X = new int[32];
+
+    /**
+     * The y-coordinate of each index.
+     */
+    private static final int[] Y = new int[32];
+
+    /**
+     * The index one step from each index in each direction (see
+     * {@link BitboardMoveGenerator#DOWN_RIGHT}), at [index * 4 + direction],
+     * or -1 if the step leaves the board.
+     */
+    private static final int[] NEIGHBOURS = new int[32 * 4];
+
+    /**
+     * The index two steps from each index in each direction, at [index * 4 +
+     * direction], or -1 if the jump leaves the board.
+     */
+    private static final int[] JUMPS = new int[32 * 4];
+
+    /**
+     * The index between each index and its jump target in each direction, at
+     * [index * 4 + direction], or -1 if the jump leaves the board.
+     */
+    private static final int[] JUMPED = new int[32 * 4];
+
+    /**
+     * The index between two indexes two steps apart, at [index1 * 32 +
+     * index2], or -1 for any other pair.
+     */
+    private static final byte[] MIDDLES = new byte[32 * 32];
+
+    /**
+     * The direction from one index to another one or two steps away on the
+     * same diagonal, at [index1 * 32 + index2], or -1 for any other pair.
+     */
+    private static final byte[] DIRECTIONS = new byte[32 * 32];
+
+    static {
+        final int[] dx = {1, -1, 1, -1}, dy = {1, 1, -1, -1};
+        for (int i = 0; i < 32; i++) {
+            Y[i] = i / 4;
+            X[i] = 2 * (i % 4) + (Y[i] + 1) % 2;
+        }
+
+        Arrays.fill(MIDDLES, (byte) -1);
+        Arrays.fill(DIRECTIONS, (byte) -1);
+        for (int i = 0; i < 32; i++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int step = toIndex(X[i] + dx[dir], Y[i] + dy[dir]);
+                int jump = toIndex(X[i] + 2 * dx[dir], Y[i] + 2 * dy[dir]);
+                NEIGHBOURS[i * 4 + dir] = step;
+                JUMPS[i * 4 + dir] = jump;
+                JUMPED[i * 4 + dir] = jump < 0 ? -1 : step;
+                if (step >= 0) {
+                    DIRECTIONS[i * 32 + step] = (byte) dir;
+                }
+                if (jump >= 0) {
+                    DIRECTIONS[i * 32 + jump] = (byte) dir;
+                    MIDDLES[i * 32 + jump] = (byte) step;
+                }
+            }
+        }
+    }
+
     /**
      * The current state of the board.
      */
     private int[] state;
 
+    /**
+     * The mask of black tiles occupied by white checkers and kings.
+     */
+    private int white;
+
+    /**
+     * The mask of black tiles occupied by black checkers and kings.
+     */
+    private int black;
+
+    /**
+     * The mask of black tiles occupied by kings of either colour.
+     */
+    private int kings;
+
+    /**
+     * The Zobrist key of the pieces on the board, see {@link Zobrist}.
+     */
+    private long key;
+
+    /**
+     * The cached masks of the white and black checkers that can skip, valid
+     * only while the matching bit of {@link #capturersValid} is set.
+     */
+    private int whiteCapturers, blackCapturers;
+
+    /**
+     * The flags of the cached capturing masks that match the board: bit 0 for
+     * white, bit 1 for black. Cleared on every change of the board.
+     */
+    private int capturersValid;
+
     /**
      * Class constructor.
      */
@@ -88,6 +190,13 @@ public class Board {
     public Board copy() {
         Board copy = new Board();
         copy.state = state.clone();
+        copy.white = white;
+        copy.black = black;
+        copy.kings = kings;
+        copy.key = key;
+        copy.whiteCapturers = whiteCapturers;
+        copy.blackCapturers = blackCapturers;
+        copy.capturersValid = capturersValid;
         return copy;
     }
 
@@ -102,7 +211,7 @@ public class Board {
      * tile.
      */
     public static int toIndex(int x, int y) {
-        if (!isValidPoint(new Point(x, y))) {
+        if (x < 0 || x > 7 || y < 0 || y > 7 || x % 2 == y % 2) {
             return -1;
         }
 
@@ -144,14 +253,29 @@ public class Board {
             return;
         }
 
-        if (id < 0) {
+        if (id < 0 || id > IDs.BLACK_KING.getID()) {
             id = IDs.EMPTY.getID();
         }
 
+        this.key ^= Zobrist.piece(get(index), index) ^ Zobrist.piece(id, index);
+        this.capturersValid = 0;
         for (int i = 0; i < state.length; i++) {
             boolean set = ((1 << (state.length - i - 1)) & id) != 0;
             this.state[i] = setBit(state[i], index, set);
         }
+
+        int bit = 1 << index;
+        this.white &= ~bit;
+        this.black &= ~bit;
+        this.kings &= ~bit;
+        if (id == IDs.WHITE_CHECKER.getID() || id == IDs.WHITE_KING.getID()) {
+            this.white |= bit;
+        } else if (id == IDs.BLACK_CHECKER.getID() || id == IDs.BLACK_KING.getID()) {
+            this.black |= bit;
+        }
+        if (id == IDs.WHITE_KING.getID() || id == IDs.BLACK_KING.getID()) {
+            this.kings |= bit;
+        }
     }
 
     /**
@@ -180,6 +304,194 @@ public class Board {
                 + getBit(state[2], index);
     }
 
+    /**
+     * Gets one of the three bit-planes of the board. Bit i of plane 0, 1 and 2
+     * holds bit 2, 1 and 0 of the ID at index i.
+     *
+     * @param plane the number of the plane (from 0 to 2).
+     * @return the bits of the plane.
+     */
+    public int getPlane(int plane) {
+        return state[plane];
+    }
+
+    /**
+     * Replaces the whole board with the specified bit-planes (see
+     * {@link #getPlane(int)}). Tiles with an invalid ID become empty.
+     *
+     * @param plane0 the bits 2 of the IDs.
+     * @param plane1 the bits 1 of the IDs.
+     * @param plane2 the bits 0 of the IDs.
+     */
+    public void setPlanes(int plane0, int plane1, int plane2) {
+        int invalid = plane0 & (plane1 | plane2);
+        this.state[0] = plane0 & ~invalid;
+        this.state[1] = plane1 & ~invalid;
+        this.state[2] = plane2 & ~invalid;
+        this.white = state[2];
+        this.black = state[0] | (state[1] & ~state[2]);
+        this.kings = state[0] | (state[1] & state[2]);
+        this.capturersValid = 0;
+        this.key = 0;
+        for (int mask = white | black; mask != 0; mask &= mask - 1) {
+            int i = Integer.numberOfTrailingZeros(mask);
+            this.key ^= Zobrist.piece(get(i), i);
+        }
+    }
+
+    /**
+     * Gets the 64-bit Zobrist key of the pieces on the board. Equal boards
+     * always have equal keys.
+     *
+     * @return the key of the board.
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the mask of black tiles occupied by white checkers and kings.
+     *
+     * @return a mask with bit i set if index i holds a white piece.
+     */
+    public int getWhiteMask() {
+        return white;
+    }
+
+    /**
+     * Gets the mask of black tiles occupied by black checkers and kings.
+     *
+     * @return a mask with bit i set if index i holds a black piece.
+     */
+    public int getBlackMask() {
+        return black;
+    }
+
+    /**
+     * Gets the mask of black tiles occupied by kings of either colour.
+     *
+     * @return a mask with bit i set if index i holds a king.
+     */
+    public int getKingMask() {
+        return kings;
+    }
+
+    /**
+     * Gets the mask of empty black tiles.
+     *
+     * @return a mask with bit i set if index i is empty.
+     */
+    public int getEmptyMask() {
+        return ~(white | black);
+    }
+
+    /**
+     * Gets the mask of black tiles occupied by the pieces of one side.
+     *
+     * @param isWhite true for the white side.
+     * @return a mask with bit i set if index i holds a piece of that side.
+     */
+    public int getPieces(boolean isWhite) {
+        return isWhite ? white : black;
+    }
+
+    /**
+     * Counts the checkers and kings of one side.
+     *
+     * @param isWhite true for the white side.
+     * @return the number of pieces of that side.
+     */
+    public int getPieceCount(boolean isWhite) {
+        return Integer.bitCount(getPieces(isWhite));
+    }
+
+    /**
+     * Counts the kings of one side.
+     *
+     * @param isWhite true for the white side.
+     * @return the number of kings of that side.
+     */
+    public int getKingCount(boolean isWhite) {
+        return Integer.bitCount(getPieces(isWhite) & kings);
+    }
+
+    /**
+     * Performs an action for the index of every piece of one side, in
+     * ascending order.
+     *
+     * @param isWhite true for the white side.
+     * @param action the action to perform for each index.
+     */
+    public void forEachPiece(boolean isWhite, IntConsumer action) {
+        forEachIndex(getPieces(isWhite), action);
+    }
+
+    /**
+     * Performs an action for every index set in a mask, in ascending order.
+     *
+     * @param mask the mask of indexes.
+     * @param action the action to perform for each index.
+     */
+    public static void forEachIndex(int mask, IntConsumer action) {
+        for (; mask != 0; mask &= mask - 1) {
+            action.accept(Integer.numberOfTrailingZeros(mask));
+        }
+    }
+
+    /**
+     * Gets the mask of the checkers of a side that can skip. The mask is
+     * computed once per board change and shared by every caller until the
+     * next {@link #set(int, int)}.
+     *
+     * @param white true for the white side.
+     * @return a mask with bit i set if the checker at index i can skip.
+     */
+    public int getCapturers(boolean white) {
+        int flag = white ? 1 : 2;
+        if ((capturersValid & flag) == 0) {
+            int mask = BitboardMoveGenerator.getSkippers(this, white);
+            if (white) {
+                this.whiteCapturers = mask;
+            } else {
+                this.blackCapturers = mask;
+            }
+            this.capturersValid |= flag;
+        }
+        return white ? whiteCapturers : blackCapturers;
+    }
+
+    /**
+     * Checks if any checker of a side can skip, which makes skipping
+     * mandatory for that side.
+     *
+     * @param white true for the white side.
+     * @return true if the side has a capture.
+     */
+    public boolean hasAnyCapture(boolean white) {
+        return getCapturers(white) != 0;
+    }
+
+    /**
+     * Gets the mask of black tiles with the specified ID.
+     *
+     * @param id the ID to search for.
+     * @return a mask with bit i set if index i has that ID.
+     */
+    private int getMask(int id) {
+        if (id == IDs.EMPTY.getID()) {
+            return getEmptyMask();
+        } else if (id == IDs.WHITE_CHECKER.getID()) {
+            return white & ~kings;
+        } else if (id == IDs.BLACK_CHECKER.getID()) {
+            return black & ~kings;
+        } else if (id == IDs.WHITE_KING.getID()) {
+            return white & kings;
+        } else if (id == IDs.BLACK_KING.getID()) {
+            return black & kings;
+        }
+        return 0;
+    }
+
     /**
      * Sets or clears the specified bit in the target value and returns the
      * updated value.
@@ -245,7 +557,94 @@ public class Board {
      * invalid.
      */
     public static Point middle(int index1, int index2) {
-        return middle(toPoint(index1), toPoint(index2));
+        return toPoint(middleIndex(index1, index2));
+    }
+
+    /**
+     * Gets the index of the black tile between two black tiles two steps apart
+     * on the same diagonal.
+     *
+     * @param index1 the index of the first point (from 0 to 31).
+     * @param index2 the index of the second point (from 0 to 31).
+     * @return the index between the two indexes or -1 if there is none.
+     */
+    public static int middleIndex(int index1, int index2) {
+        if (!isValidIndex(index1) || !isValidIndex(index2)) {
+            return -1;
+        }
+
+        return MIDDLES[index1 * 32 + index2];
+    }
+
+    /**
+     * Gets the direction (see {@link BitboardMoveGenerator#DOWN_RIGHT}) from
+     * one black tile to another one or two steps away on the same diagonal.
+     *
+     * @param index1 the index of the first point (from 0 to 31).
+     * @param index2 the index of the second point (from 0 to 31).
+     * @return the direction (from 0 to 3) or -1 if the tiles are not one or
+     * two steps apart.
+     */
+    public static int direction(int index1, int index2) {
+        if (!isValidIndex(index1) || !isValidIndex(index2)) {
+            return -1;
+        }
+
+        return DIRECTIONS[index1 * 32 + index2];
+    }
+
+    /**
+     * Gets the black tile one step from a black tile in a direction.
+     *
+     * @param index the index of the black tile (from 0 to 31).
+     * @param dir the direction (from 0 to 3).
+     * @return the index of the neighbour or -1 if the step leaves the board.
+     */
+    public static int neighbour(int index, int dir) {
+        return NEIGHBOURS[index * 4 + dir];
+    }
+
+    /**
+     * Gets the black tile two steps from a black tile in a direction.
+     *
+     * @param index the index of the black tile (from 0 to 31).
+     * @param dir the direction (from 0 to 3).
+     * @return the index of the jump target or -1 if the jump leaves the board.
+     */
+    public static int jump(int index, int dir) {
+        return JUMPS[index * 4 + dir];
+    }
+
+    /**
+     * Gets the black tile jumped over by a jump from a black tile in a
+     * direction.
+     *
+     * @param index the index of the black tile (from 0 to 31).
+     * @param dir the direction (from 0 to 3).
+     * @return the index of the jumped tile or -1 if the jump leaves the board.
+     */
+    public static int jumped(int index, int dir) {
+        return JUMPED[index * 4 + dir];
+    }
+
+    /**
+     * Gets the x-coordinate of a black tile.
+     *
+     * @param index the index of the black tile (from 0 to 31).
+     * @return the x-coordinate (from 0 to 7).
+     */
+    public static int getX(int index) {
+        return X[index];
+    }
+
+    /**
+     * Gets the y-coordinate of a black tile.
+     *
+     * @param index the index of the black tile (from 0 to 31).
+     * @return the y-coordinate (from 0 to 7).
+     */
+    public static int getY(int index) {
+        return Y[index];
     }
 
     /**
@@ -282,12 +681,7 @@ public class Board {
      */
     public List<Point> find(int id) {
         List<Point> points = new ArrayList<>();
-        for (int i = 0; i < 32; i++) {
-            if (get(i) == id) {
-                points.add(toPoint(i));
-            }
-        }
-
+        forEachIndex(getMask(id), i -> points.add(toPoint(i)));
         return points;
     }
 
@@ -300,9 +694,7 @@ public class Board {
      * point (-1, -1) if the index is not between 0 - 31.
      */
     public static Point toPoint(int index) {
-        int y = index / 4;
-        int x = 2 * (index % 4) + (y + 1) % 2;
-        return !isValidIndex(index) ? new Point(-1, -1) : new Point(x, y);
+        return !isValidIndex(index) ? new Point(-1, -1) : new Point(X[index], Y[index]);
     }
 
     /**
@@ -343,29 +735,18 @@ public class Board {
      * the current turn.
      */
     public boolean isValidSelection(boolean isP1Turn, Point selected) {
-        int i = toIndex(selected), id = get(i);
-        if (id == IDs.EMPTY.getID() || id == IDs.INVALID.getID()) {
-            return false;
-        } else if (isP1Turn ^ (id == IDs.WHITE_CHECKER.getID() || id == IDs.WHITE_KING.getID())) {
-            return false;
-        } else if (!MoveGenerator.getSkips(this, i).isEmpty()) {
-            return true;
-        } else if (MoveGenerator.getMoves(this, i).isEmpty()) {
+        int i = toIndex(selected);
+        if (!isValidIndex(i) || (getPieces(isP1Turn) & (1 << i)) == 0) {
             return false;
         }
 
-        java.util.List<Point> points = find(isP1Turn ? IDs.WHITE_CHECKER.getID() : IDs.BLACK_CHECKER.getID());
-        points.addAll(find(isP1Turn ? IDs.WHITE_KING.getID() : IDs.BLACK_KING.getID()));
-        for (Point p : points) {
-            int checker = toIndex(p);
-            if (checker == i) {
-                continue;
-            }
-            if (!MoveGenerator.getSkips(this, checker).isEmpty()) {
-                return false;
-            }
+        int skippers = getCapturers(isP1Turn);
+        if ((skippers & (1 << i)) != 0) {
+            return true;
+        } else if ((BitboardMoveGenerator.getMovers(this, isP1Turn) & (1 << i)) == 0) {
+            return false;
         }
 
-        return true;
+        return skippers == 0;
     }
 }
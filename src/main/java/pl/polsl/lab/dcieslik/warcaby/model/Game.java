@@ -2,7 +2,8 @@ package pl.polsl.lab.dcieslik.warcaby.model;
 
 import pl.polsl.lab.dcieslik.warcaby.view.BoardWindow;
 import java.awt.*;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Represents a game of Checkers and ensures that all moves made are valid based
@@ -12,6 +13,27 @@ import java.util.List;
  */
 public class Game {
 
+    /**
+     * The number of bytes of a game state written by
+     * {@link #writeTo(ByteBuffer)}.
+     */
+    public static final int STATE_BYTES = 16;
+
+    /**
+     * The number of ints in each undo entry.
+     */
+    private static final int UNDO_SIZE = 3;
+
+    /**
+     * The flag of an undo entry set if the move promoted a checker.
+     */
+    private static final int UNDO_PROMOTED = 1 << 10;
+
+    /**
+     * The flag of an undo entry set if it was white player turn.
+     */
+    private static final int UNDO_WHITE_TURN = 1 << 17;
+
     /**
      * The checker board component playing the updatable game.
      */
@@ -32,6 +54,40 @@ public class Game {
      */
     private int skipIndex;
 
+    /**
+     * The Zobrist key of the side to move and the skip index.
+     */
+    private long turnKey;
+
+    /**
+     * The number of white checkers and kings on the board.
+     */
+    private int whiteCount;
+
+    /**
+     * The number of black checkers and kings on the board.
+     */
+    private int blackCount;
+
+    /**
+     * The flag indicating if the side to move has any legal move.
+     */
+    private boolean hasLegalMove;
+
+    /**
+     * The undo entries of the moves made with {@link #makeMove(int)} and
+     * {@link #makeTurn(long)}. Each entry is three ints: the start and end
+     * index, the promotion flag and the previous turn and skip index packed
+     * together, the mask of the skipped checkers and the mask of the skipped
+     * kings.
+     */
+    private int[] undo = new int[64 * UNDO_SIZE];
+
+    /**
+     * The number of undo entries.
+     */
+    private int undoSize;
+
     /**
      * The last selected point on the board.
      */
@@ -42,10 +98,19 @@ public class Game {
      */
     private boolean selectionValid;
 
+    /**
+     * Class constructor of a game without a window, for example one played
+     * by the engine.
+     */
+    public Game() {
+        this(null);
+    }
+
     /**
      * Class constructor.
      *
-     * @param window The checkers board window.
+     * @param window The checkers board window, or null for a game without
+     * one.
      */
     public Game(BoardWindow window) {
         this.boardWindow = window;
@@ -53,12 +118,62 @@ public class Game {
     }
 
     /**
-     * Resets the game of checkers to the initial state.
+     * Class constructor of a copy, whose fields are all set by
+     * {@link #copy()}.
+     *
+     * @param window The checkers board window, or null.
+     * @param board the board of the copy.
+     */
+    private Game(BoardWindow window, Board board) {
+        this.boardWindow = window;
+        this.board = board;
+    }
+
+    /**
+     * Resets the game of checkers to the initial state. The moves made before
+     * can no longer be taken back.
      */
     public void restart() {
+        this.undoSize = 0;
         this.board = new Board();
-        this.isPlayer1Turn = true;
-        this.skipIndex = -1;
+        setTurn(true, -1);
+        this.whiteCount = board.getPieceCount(true);
+        this.blackCount = board.getPieceCount(false);
+        updateMobility();
+    }
+
+    /**
+     * Updates the flag of the side to move having a legal move. Called after
+     * every change of the game state, so that {@link #isGameOver()} does not
+     * have to look at the board.
+     */
+    private void updateMobility() {
+        this.hasLegalMove = board.hasAnyCapture(isPlayer1Turn)
+                || BitboardMoveGenerator.getMovers(board, isPlayer1Turn) != 0;
+    }
+
+    /**
+     * Sets the side to move and the index of the last skip, keeping the
+     * Zobrist key up to date.
+     *
+     * @param isP1Turn the flag of a turn.
+     * @param skipIndex the index of the last skip this turn, or -1.
+     */
+    private void setTurn(boolean isP1Turn, int skipIndex) {
+        this.turnKey = Zobrist.turn(isP1Turn, skipIndex);
+        this.isPlayer1Turn = isP1Turn;
+        this.skipIndex = skipIndex;
+    }
+
+    /**
+     * Gets the 64-bit Zobrist key of the game state, covering the board, the
+     * side to move and the skip index. Equal game states always have equal
+     * keys.
+     *
+     * @return the key of the game state.
+     */
+    public long getKey() {
+        return board.getKey() ^ turnKey;
     }
 
     /**
@@ -88,6 +203,16 @@ public class Game {
         return boardWindow;
     }
 
+    /**
+     * Gets the mask of the checkers of the side to move that can skip, cached
+     * by the board until the next change.
+     *
+     * @return a mask with bit i set if the checker at index i can skip.
+     */
+    public int getCapturers() {
+        return board.getCapturers(isPlayer1Turn);
+    }
+
     /**
      * Checks if it is white player turn.
      *
@@ -112,10 +237,13 @@ public class Game {
      * @return an exact copy of this game.
      */
     public Game copy() {
-        Game g = new Game(boardWindow);
-        g.board = board.copy();
+        Game g = new Game(boardWindow, board.copy());
         g.isPlayer1Turn = isPlayer1Turn;
         g.skipIndex = skipIndex;
+        g.turnKey = turnKey;
+        g.whiteCount = whiteCount;
+        g.blackCount = blackCount;
+        g.hasLegalMove = hasLegalMove;
         return g;
     }
 
@@ -144,7 +272,6 @@ public class Game {
      * @param y	the y-coordinate of the click.
      */
     public void handleClick(int x, int y) {
-        Game copy = this.copy();
         final int W = boardWindow.getWidth(), H = boardWindow.getHeight();
         final int DIM = W < H ? W : H, BOX_SIZE = (DIM - 2 * boardWindow.getPadding()) / 8;
         final int OFFSET_X = (W - BOX_SIZE * 8) / 2;
@@ -153,20 +280,31 @@ public class Game {
         y = (y - OFFSET_Y) / BOX_SIZE;
         Point sel = new Point(x, y);
 
+        boolean moved = false;
+        long expectedHigh = 0, expectedLow = 0, newHigh = 0, newLow = 0;
         if (Board.isValidPoint(sel) && Board.isValidPoint(selected)) {
-            boolean change = copy.isP1Turn();
-            String expected = copy.getGameState();
-            boolean move = copy.move(selected, sel);
-            if (move) {
-                boardWindow.setGameState(copy.getGameState(), expected);
+            int startIndex = Board.toIndex(selected), endIndex = Board.toIndex(sel);
+            boolean change = isPlayer1Turn;
+            moved = MoveLogic.isValidMove(this, startIndex, endIndex);
+            if (moved) {
+                expectedHigh = getStateHigh();
+                expectedLow = getStateLow();
+                makeMove(Move.between(startIndex, endIndex));
+                newHigh = getStateHigh();
+                newLow = getStateLow();
             }
-            change = (copy.isP1Turn() != change);
+            change = (isPlayer1Turn != change);
             selected = change ? null : sel;
         } else {
             selected = sel;
         }
 
-        selectionValid = copy.getBoard().isValidSelection(copy.isP1Turn(), selected);
+        selectionValid = board.isValidSelection(isPlayer1Turn, selected);
+
+        if (moved) {
+            unmakeMove();
+            boardWindow.setGameState(newHigh, newLow, expectedHigh, expectedLow);
+        }
 
         boardWindow.update();
     }
@@ -198,84 +336,320 @@ public class Game {
             return false;
         }
 
-        Point middle = Board.middle(startIndex, endIndex);
-        int midIndex = Board.toIndex(middle);
-        this.board.set(endIndex, board.get(startIndex));
-        this.board.set(midIndex, Board.IDs.EMPTY.getID());
-        this.board.set(startIndex, Board.IDs.EMPTY.getID());
+        int midIndex = Move.getMiddle(Move.between(startIndex, endIndex));
+        apply(startIndex, endIndex, midIndex < 0 ? 0 : 1 << midIndex, true, false);
+        return true;
+    }
 
-        Point end = Board.toPoint(endIndex);
-        int id = board.get(endIndex);
-        boolean switchTurn = false;
-        if (end.y == 0 && id == Board.IDs.WHITE_CHECKER.getID()) {
-            this.board.set(endIndex, Board.IDs.WHITE_KING.getID());
-        } else if (end.y == 7 && id == Board.IDs.BLACK_CHECKER.getID()) {
-            this.board.set(endIndex, Board.IDs.BLACK_KING.getID());
+    /**
+     * Plays a whole turn in one step, if it is valid.
+     *
+     * @param turn the packed turn (see {@link Turn}).
+     * @return true if an update was made to the game state.
+     */
+    public boolean playTurn(long turn) {
+        if (!MoveLogic.isValidTurn(this, turn)) {
+            return false;
+        }
+
+        apply(Turn.getStart(turn), Turn.getEnd(turn), Turn.getCaptured(turn), false, Turn.isPromoted(turn));
+        return true;
+    }
+
+    /**
+     * Makes a packed move (see {@link Move}) without validating it and records
+     * it, so that it can be taken back with {@link #unmakeMove()}. The move
+     * must be legal, for example one generated by
+     * {@link BitboardMoveGenerator#generateLegal}.
+     *
+     * @param move the packed move.
+     */
+    public void makeMove(int move) {
+        int midIndex = Move.getMiddle(move);
+        int captured = midIndex < 0 ? 0 : 1 << midIndex;
+        int entry = push(Move.getStart(move), Move.getEnd(move), captured);
+        if (apply(Move.getStart(move), Move.getEnd(move), captured, true, false)) {
+            undo[entry] |= UNDO_PROMOTED;
         }
+    }
 
-        boolean midValid = Board.isValidIndex(midIndex);
+    /**
+     * Makes a whole packed turn (see {@link Turn}) without validating it and
+     * records it, so that it can be taken back with {@link #unmakeMove()}. The
+     * turn must be legal, for example one generated by
+     * {@link BitboardMoveGenerator#generateTurns}.
+     *
+     * @param turn the packed turn.
+     */
+    public void makeTurn(long turn) {
+        int startIndex = Turn.getStart(turn), endIndex = Turn.getEnd(turn);
+        int entry = push(startIndex, endIndex, Turn.getCaptured(turn));
+        if (apply(startIndex, endIndex, Turn.getCaptured(turn), false, Turn.isPromoted(turn))) {
+            undo[entry] |= UNDO_PROMOTED;
+        }
+    }
 
-        if (midValid) {
-            this.skipIndex = endIndex;
+    /**
+     * Takes back the last move or turn made with {@link #makeMove(int)} or
+     * {@link #makeTurn(long)}.
+     *
+     * @return true if a move was taken back.
+     */
+    public boolean unmakeMove() {
+        if (undoSize == 0) {
+            return false;
         }
 
-        if (!midValid || MoveGenerator.getSkips(board.copy(), endIndex).isEmpty()) {
-            switchTurn = true;
+        int entry = --undoSize * UNDO_SIZE;
+        int info = undo[entry], captured = undo[entry + 1], kings = undo[entry + 2];
+        int startIndex = info & 0x1F, endIndex = (info >>> 5) & 0x1F;
+        boolean white = (info & UNDO_WHITE_TURN) != 0;
+        int id = board.get(endIndex);
+        if ((info & UNDO_PROMOTED) != 0) {
+            id = white ? Board.IDs.WHITE_CHECKER.getID() : Board.IDs.BLACK_CHECKER.getID();
         }
 
-        if (switchTurn) {
-            this.isPlayer1Turn = !isPlayer1Turn;
-            this.skipIndex = -1;
+        this.board.set(endIndex, Board.IDs.EMPTY.getID());
+        if (white) {
+            this.blackCount += Integer.bitCount(captured);
+        } else {
+            this.whiteCount += Integer.bitCount(captured);
+        }
+        for (; captured != 0; captured &= captured - 1) {
+            int i = Integer.numberOfTrailingZeros(captured);
+            boolean king = (kings & (1 << i)) != 0;
+            this.board.set(i, white
+                    ? (king ? Board.IDs.BLACK_KING.getID() : Board.IDs.BLACK_CHECKER.getID())
+                    : (king ? Board.IDs.WHITE_KING.getID() : Board.IDs.WHITE_CHECKER.getID()));
         }
+        this.board.set(startIndex, id);
+        setTurn(white, ((info >>> 11) & 0x3F) - 1);
+        updateMobility();
 
         return true;
     }
 
+    /**
+     * Gets the number of moves that can be taken back.
+     *
+     * @return the number of recorded moves.
+     */
+    public int getUndoDepth() {
+        return undoSize;
+    }
+
+    /**
+     * Records an undo entry for a move about to be made.
+     *
+     * @param startIndex the start index.
+     * @param endIndex the end index.
+     * @param captured the mask of the checkers that will be skipped.
+     * @return the position of the entry in the undo stack.
+     */
+    private int push(int startIndex, int endIndex, int captured) {
+        int entry = undoSize++ * UNDO_SIZE;
+        if (entry == undo.length) {
+            undo = Arrays.copyOf(undo, entry * 2);
+        }
+
+        undo[entry] = startIndex | (endIndex << 5)
+                | ((Board.isValidIndex(skipIndex) ? skipIndex + 1 : 0) << 11)
+                | (isPlayer1Turn ? UNDO_WHITE_TURN : 0);
+        undo[entry + 1] = captured;
+        undo[entry + 2] = captured & board.getKingMask();
+        return entry;
+    }
+
+    /**
+     * Updates the game state with a move or a whole turn. Checkers reaching
+     * the last row become kings. The turn passes to the other player, unless
+     * a single skip can be followed by another skip.
+     *
+     * @param startIndex the start index.
+     * @param endIndex the end index.
+     * @param captured the mask of the skipped checkers.
+     * @param single true if the move is a single move or skip.
+     * @param promote true to crown the checker even if it does not end on the
+     * last row.
+     * @return true if the checker became a king.
+     */
+    private boolean apply(int startIndex, int endIndex, int captured, boolean single, boolean promote) {
+        int id = board.get(startIndex);
+        this.board.set(startIndex, Board.IDs.EMPTY.getID());
+        for (int mask = captured; mask != 0; mask &= mask - 1) {
+            this.board.set(Integer.numberOfTrailingZeros(mask), Board.IDs.EMPTY.getID());
+        }
+        if (isPlayer1Turn) {
+            this.blackCount -= Integer.bitCount(captured);
+        } else {
+            this.whiteCount -= Integer.bitCount(captured);
+        }
+
+        boolean promoted = false;
+        if ((promote || endIndex < 4) && id == Board.IDs.WHITE_CHECKER.getID()) {
+            id = Board.IDs.WHITE_KING.getID();
+            promoted = true;
+        } else if ((promote || endIndex > 27) && id == Board.IDs.BLACK_CHECKER.getID()) {
+            id = Board.IDs.BLACK_KING.getID();
+            promoted = true;
+        }
+        this.board.set(endIndex, id);
+
+        if (single && captured != 0
+                && (board.getCapturers(isPlayer1Turn) & (1 << endIndex)) != 0) {
+            setTurn(isPlayer1Turn, endIndex);
+        } else {
+            setTurn(!isPlayer1Turn, -1);
+        }
+        updateMobility();
+
+        return promoted;
+    }
+
     /**
      * Determines if the game is over.
      *
      * @return true if the game is over.
      */
     public boolean isGameOver() {
-        List<Point> black = board.find(Board.IDs.BLACK_CHECKER.getID());
-        black.addAll(board.find(Board.IDs.BLACK_KING.getID()));
-        if (black.isEmpty()) {
-            return true;
-        }
+        return whiteCount == 0 || blackCount == 0 || !hasLegalMove;
+    }
 
-        List<Point> white = board.find(Board.IDs.WHITE_CHECKER.getID());
-        white.addAll(board.find(Board.IDs.WHITE_KING.getID()));
-        if (white.isEmpty()) {
-            return true;
-        }
+    /**
+     * Gets the number of checkers and kings of a player.
+     *
+     * @param white true for the white player.
+     * @return the number of pieces on the board.
+     */
+    public int getPieceCount(boolean white) {
+        return white ? whiteCount : blackCount;
+    }
+
+    /**
+     * Checks if the player to move has any legal move or skip.
+     *
+     * @return true if the player to move can move.
+     */
+    public boolean hasLegalMove() {
+        return hasLegalMove;
+    }
+
+    /**
+     * Gets the first half of the packed game state: bit-plane 0 of the board
+     * in the low 32 bits and bit-plane 1 in the high 32 bits (see
+     * {@link Board#getPlane(int)}).
+     *
+     * @return the high long of the packed game state.
+     */
+    public long getStateHigh() {
+        return (board.getPlane(0) & 0xFFFFFFFFL) | ((long) board.getPlane(1) << 32);
+    }
+
+    /**
+     * Gets the second half of the packed game state: bit-plane 2 of the board
+     * in the low 32 bits, the turn flag in bit 32 and the skip index plus one
+     * in bits 33 - 38.
+     *
+     * @return the low long of the packed game state.
+     */
+    public long getStateLow() {
+        int skip = Board.isValidIndex(skipIndex) ? skipIndex + 1 : 0;
+        return (board.getPlane(2) & 0xFFFFFFFFL) | (isPlayer1Turn ? 1L << 32 : 0)
+                | ((long) skip << 33);
+    }
+
+    /**
+     * Sets the game state from its packed form (see {@link #getStateHigh()}
+     * and {@link #getStateLow()}), reusing the current board. The moves made
+     * before can no longer be taken back.
+     *
+     * @param high the high long of the packed game state.
+     * @param low the low long of the packed game state.
+     */
+    public void setState(long high, long low) {
+        this.undoSize = 0;
+        board.setPlanes((int) high, (int) (high >>> 32), (int) low);
+        setTurn(isP1Turn(low), getSkipIndex(low));
+        this.whiteCount = board.getPieceCount(true);
+        this.blackCount = board.getPieceCount(false);
+        updateMobility();
+    }
+
+    /**
+     * Gets the turn flag of a packed game state.
+     *
+     * @param low the low long of the packed game state.
+     * @return true if it is white player turn.
+     */
+    public static boolean isP1Turn(long low) {
+        return (low & (1L << 32)) != 0;
+    }
 
-        List<Point> test = isPlayer1Turn ? white : black;
-        return test.stream()
-                .map(p -> Board.toIndex(p))
-                .noneMatch(i -> (!MoveGenerator.getMoves(board, i).isEmpty()
-                || !MoveGenerator.getSkips(board, i).isEmpty()));
+    /**
+     * Gets the skip index of a packed game state.
+     *
+     * @param low the low long of the packed game state.
+     * @return the index of the last skip, or -1.
+     */
+    public static int getSkipIndex(long low) {
+        return (int) ((low >>> 33) & 0x3F) - 1;
+    }
+
+    /**
+     * Checks if the game is in the specified packed state.
+     *
+     * @param high the high long of the packed game state.
+     * @param low the low long of the packed game state.
+     * @return true if the game state is equal.
+     */
+    public boolean isState(long high, long low) {
+        return getStateHigh() == high && getStateLow() == low;
+    }
+
+    /**
+     * Writes the packed game state as {@link #STATE_BYTES} bytes at the
+     * current position of a buffer.
+     *
+     * @param buffer the buffer to write to.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(getStateHigh());
+        buffer.putLong(getStateLow());
     }
 
     /**
-     * Gets the current game state as a string of data.
+     * Reads a packed game state written by {@link #writeTo(ByteBuffer)} from
+     * the current position of a buffer.
+     *
+     * @param buffer the buffer to read from.
+     */
+    public void readFrom(ByteBuffer buffer) {
+        long high = buffer.getLong();
+        setState(high, buffer.getLong());
+    }
+
+    /**
+     * Gets the current game state as a readable string of data: the ID of
+     * each black tile, the turn flag and the skip index. Meant for debugging
+     * and tests, see {@link #writeTo(ByteBuffer)} for the compact form.
      *
      * @return a string representing the current game state.
      */
     public String getGameState() {
-
-        String state = "";
+        StringBuilder state = new StringBuilder(36);
         for (int i = 0; i < 32; i++) {
-            state += "" + board.get(i);
+            state.append(board.get(i));
         }
 
-        state += (isPlayer1Turn ? "1" : "0");
-        state += skipIndex;
+        state.append(isPlayer1Turn ? '1' : '0');
+        state.append(skipIndex);
 
-        return state;
+        return state.toString();
     }
 
     /**
-     * Parses a string representing a game state.
+     * Parses a string representing a game state (see
+     * {@link #getGameState()}).
      *
      * @param state the game state as a string of data.
      */
@@ -288,22 +662,25 @@ public class Game {
 
         int n = state.length();
         for (int i = 0; i < 32 && i < n; i++) {
-            try {
-                int id = Integer.parseInt("" + state.charAt(i));
+            int id = Character.digit(state.charAt(i), 10);
+            if (id >= 0) {
                 this.board.set(i, id);
-            } catch (NumberFormatException e) {
             }
         }
 
         if (n > 32) {
-            this.isPlayer1Turn = (state.charAt(32) == '1');
+            setTurn(state.charAt(32) == '1', skipIndex);
         }
         if (n > 33) {
             try {
-                this.skipIndex = Integer.parseInt(state.substring(33));
+                setTurn(isPlayer1Turn, Integer.parseInt(state.substring(33)));
             } catch (NumberFormatException e) {
-                this.skipIndex = -1;
+                setTurn(isPlayer1Turn, -1);
             }
         }
+
+        this.whiteCount = board.getPieceCount(true);
+        this.blackCount = board.getPieceCount(false);
+        updateMobility();
     }
 }
@@ -0,0 +1,120 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+/**
+ * Packs a single move or skip into a primitive int, so that move lists can be
+ * stored without creating any objects. Bits 0 - 4 hold the start index, bits 5
+ * - 9 the end index, bits 10 - 14 the index of the skipped checker and bit 15
+ * is set if the move is a skip.
+ *
+ * @author Dawid Cieślik
+ */
+public final class Move {
+
+    /**
+     * The mask of a single 5-bit index.
+     */
+    private static final int INDEX_MASK = 0x1F;
+
+    /**
+     * The flag set for moves which skip over a checker.
+     */
+    private static final int SKIP_FLAG = 1 << 15;
+
+    /**
+     * A value that never represents a valid move.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * Utility class, no instances.
+     */
+    private Move() {
+    }
+
+    /**
+     * Creates a move to an adjacent black tile.
+     *
+     * @param startIndex the start index of the move (from 0 to 31).
+     * @param endIndex the end index of the move (from 0 to 31).
+     * @return the packed move.
+     */
+    public static int of(int startIndex, int endIndex) {
+        return startIndex | (endIndex << 5);
+    }
+
+    /**
+     * Creates a skip over a checker.
+     *
+     * @param startIndex the start index of the skip (from 0 to 31).
+     * @param endIndex the end index of the skip (from 0 to 31).
+     * @param midIndex the index of the skipped checker (from 0 to 31).
+     * @return the packed skip.
+     */
+    public static int skip(int startIndex, int endIndex, int midIndex) {
+        return startIndex | (endIndex << 5) | (midIndex << 10) | SKIP_FLAG;
+    }
+
+    /**
+     * Creates a move or a skip between two indexes, depending on their
+     * distance.
+     *
+     * @param startIndex the start index of the move (from 0 to 31).
+     * @param endIndex the end index of the move (from 0 to 31).
+     * @return the packed move.
+     */
+    public static int between(int startIndex, int endIndex) {
+        int midIndex = Board.middleIndex(startIndex, endIndex);
+        return midIndex < 0 ? of(startIndex, endIndex) : skip(startIndex, endIndex, midIndex);
+    }
+
+    /**
+     * Gets the start index of a packed move.
+     *
+     * @param move the packed move.
+     * @return the start index.
+     */
+    public static int getStart(int move) {
+        return move & INDEX_MASK;
+    }
+
+    /**
+     * Gets the end index of a packed move.
+     *
+     * @param move the packed move.
+     * @return the end index.
+     */
+    public static int getEnd(int move) {
+        return (move >>> 5) & INDEX_MASK;
+    }
+
+    /**
+     * Gets the index of the checker skipped by a packed move.
+     *
+     * @param move the packed move.
+     * @return the index of the skipped checker or -1 if the move is not a
+     * skip.
+     */
+    public static int getMiddle(int move) {
+        return isSkip(move) ? (move >>> 10) & INDEX_MASK : -1;
+    }
+
+    /**
+     * Checks if a packed move is a skip.
+     *
+     * @param move the packed move.
+     * @return true if the move skips over a checker.
+     */
+    public static boolean isSkip(int move) {
+        return (move & SKIP_FLAG) != 0;
+    }
+
+    /**
+     * Gets a readable form of a packed move, for example "20-16" or "21x14".
+     *
+     * @param move the packed move.
+     * @return the move as a string.
+     */
+    public static String toString(int move) {
+        return getStart(move) + (isSkip(move) ? "x" : "-") + getEnd(move);
+    }
+}
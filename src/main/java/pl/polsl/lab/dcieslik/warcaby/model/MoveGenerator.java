@@ -6,7 +6,7 @@ import java.util.List;
 
 /**
  * Provides methods for determining if a given checker can make any move or
- * skip.
+ * skip. The lists of points are built on top of {@link BitboardMoveGenerator}.
  *
  * @author Dawid Cieślik
  */
@@ -31,23 +31,9 @@ public class MoveGenerator {
      * @return the list of points representing available moves.
      */
     public static List<Point> getMoves(Board board, int startIndex) {
-        List<Point> endPoints = new ArrayList<>();
-        if (board == null || !Board.isValidIndex(startIndex)) {
-            return endPoints;
-        }
-
-        int id = board.get(startIndex);
-        Point p = Board.toPoint(startIndex);
-        addPoints(endPoints, p, id, 1);
-
-        for (int i = 0; i < endPoints.size(); i++) {
-            Point end = endPoints.get(i);
-            if (board.get(end.x, end.y) != Board.IDs.EMPTY.getID()) {
-                endPoints.remove(i--);
-            }
-        }
-
-        return endPoints;
+        MoveList moves = new MoveList(4);
+        BitboardMoveGenerator.generateMoves(board, startIndex, moves);
+        return toEndPoints(moves);
     }
 
     /**
@@ -69,20 +55,21 @@ public class MoveGenerator {
      * @return the list of points representing available skips.
      */
     public static List<Point> getSkips(Board board, int startIndex) {
-        List<Point> endPoints = new ArrayList<>();
-        if (board == null || !Board.isValidIndex(startIndex)) {
-            return endPoints;
-        }
-
-        int id = board.get(startIndex);
-        Point p = Board.toPoint(startIndex);
-        addPoints(endPoints, p, id, 2);
+        MoveList skips = new MoveList(4);
+        BitboardMoveGenerator.generateSkips(board, startIndex, skips);
+        return toEndPoints(skips);
+    }
 
-        for (int i = 0; i < endPoints.size(); i++) {
-            Point end = endPoints.get(i);
-            if (!isValidSkip(board, startIndex, Board.toIndex(end))) {
-                endPoints.remove(i--);
-            }
+    /**
+     * Converts packed moves to a list of their end-points.
+     *
+     * @param moves the packed moves.
+     * @return the list of points representing the ends of the moves.
+     */
+    private static List<Point> toEndPoints(MoveList moves) {
+        List<Point> endPoints = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            endPoints.add(Board.toPoint(Move.getEnd(moves.get(i))));
         }
 
         return endPoints;
@@ -106,7 +93,7 @@ public class MoveGenerator {
         }
 
         int id = board.get(startIndex);
-        int midID = board.get(Board.toIndex(Board.middle(startIndex, endIndex)));
+        int midID = board.get(Board.middleIndex(startIndex, endIndex));
         if (id == Board.IDs.INVALID.getID() || id == Board.IDs.EMPTY.getID()) {
             return false;
         } else if (midID == Board.IDs.INVALID.getID() || midID == Board.IDs.EMPTY.getID()) {
@@ -0,0 +1,90 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of packed moves (see {@link Move}). Clearing the list keeps
+ * its storage, so one instance can be used for any number of generations.
+ *
+ * @author Dawid Cieślik
+ */
+public class MoveList {
+
+    /**
+     * The default capacity, enough for every move of a full side.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The packed moves.
+     */
+    private int[] moves;
+
+    /**
+     * The number of moves in the list.
+     */
+    private int size;
+
+    /**
+     * Class constructor.
+     */
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param capacity the initial capacity of the list.
+     */
+    public MoveList(int capacity) {
+        this.moves = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Adds a packed move at the end of the list.
+     *
+     * @param move the packed move.
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Gets the packed move at the specified position.
+     *
+     * @param i the position in the list.
+     * @return the packed move.
+     */
+    public int get(int i) {
+        return moves[i];
+    }
+
+    /**
+     * Gets the number of moves in the list.
+     *
+     * @return the number of moves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list has no moves.
+     *
+     * @return true if the list is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all moves from the list, keeping its storage.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -1,8 +1,5 @@
 package pl.polsl.lab.dcieslik.warcaby.model;
 
-import java.awt.Point;
-import java.util.List;
-
 /**
  * Determinates what a valid move or a valid skip is.
  *
@@ -19,7 +16,7 @@ public class MoveLogic {
      * @return true if the move is valid.
      */
     public static boolean isValidMove(Game game, int startIndex, int endIndex) {
-        return game == null ? false : isValidMove(game.getBoard(),
+        return game == null ? false : isValidMove(game.getExactBoard(),
                 game.isP1Turn(), startIndex, endIndex, game.getSkipIndex());
     }
 
@@ -72,8 +69,7 @@ public class MoveLogic {
             return false;
         }
 
-        Point middle = Board.middle(startIndex, endIndex);
-        int midID = board.get(Board.toIndex(middle));
+        int midID = board.get(Board.middleIndex(startIndex, endIndex));
         return !(midID != Board.IDs.INVALID.getID()
                 && ((!isP1Turn && midID != Board.IDs.WHITE_CHECKER.getID() && midID != Board.IDs.WHITE_KING.getID())
                 || (isP1Turn && midID != Board.IDs.BLACK_CHECKER.getID() && midID != Board.IDs.BLACK_KING.getID())));
@@ -89,39 +85,55 @@ public class MoveLogic {
      * @return true if the move distance is valid.
      */
     private static boolean validateDistance(Board board, boolean isP1Turn, int startIndex, int endIndex) {
-        Point start = Board.toPoint(startIndex);
-        Point end = Board.toPoint(endIndex);
-        int dx = end.x - start.x;
-        int dy = end.y - start.y;
-        if (Math.abs(dx) != Math.abs(dy) || Math.abs(dx) > 2 || dx == 0) {
+        int dir = Board.direction(startIndex, endIndex);
+        if (dir < 0) {
             return false;
         }
 
         int id = board.get(startIndex);
-        if ((id == Board.IDs.WHITE_CHECKER.getID() && dy > 0) || (id == Board.IDs.BLACK_CHECKER.getID() && dy < 0)) {
+        boolean down = dir == BitboardMoveGenerator.DOWN_RIGHT || dir == BitboardMoveGenerator.DOWN_LEFT;
+        if ((id == Board.IDs.WHITE_CHECKER.getID() && down) || (id == Board.IDs.BLACK_CHECKER.getID() && !down)) {
             return false;
         }
 
-        Point middle = Board.middle(startIndex, endIndex);
-        int midID = board.get(Board.toIndex(middle));
-        if (midID < 0) {
-            List<Point> checkers;
-            if (isP1Turn) {
-                checkers = board.find(Board.IDs.WHITE_CHECKER.getID());
-                checkers.addAll(board.find(Board.IDs.WHITE_KING.getID()));
-            } else {
-                checkers = board.find(Board.IDs.BLACK_CHECKER.getID());
-                checkers.addAll(board.find(Board.IDs.BLACK_KING.getID()));
-            }
-
-            for (Point p : checkers) {
-                int index = Board.toIndex(p);
-                if (!MoveGenerator.getSkips(board, index).isEmpty()) {
-                    return false;
-                }
-            }
+        int midID = board.get(Board.middleIndex(startIndex, endIndex));
+        if (midID < 0 && board.hasAnyCapture(isP1Turn)) {
+            return false;
         }
 
         return true;
     }
+
+    /**
+     * Determines if the specified whole turn is valid based on the rules.
+     *
+     * @param game the game object.
+     * @param turn the packed turn (see {@link Turn}).
+     * @return true if the turn is valid.
+     */
+    public static boolean isValidTurn(Game game, long turn) {
+        return game == null ? false : isValidTurn(game.getExactBoard(),
+                game.isP1Turn(), game.getSkipIndex(), turn);
+    }
+
+    /**
+     * Determines if the specified whole turn is valid based on the rules: it
+     * must be a single move when no checker can skip, or else a complete
+     * sequence of skips.
+     *
+     * @param board the current board to check against.
+     * @param isP1Turn the flag of a turn.
+     * @param skipIndex the index of the last skip this turn.
+     * @param turn the packed turn (see {@link Turn}).
+     * @return true if the turn is valid.
+     */
+    public static boolean isValidTurn(Board board, boolean isP1Turn, int skipIndex, long turn) {
+        if (board == null) {
+            return false;
+        }
+
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(board, isP1Turn, skipIndex, turns);
+        return turns.contains(turn);
+    }
 }
@@ -0,0 +1,107 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+/**
+ * Packs a whole turn of a player into a primitive long: a single move, or a
+ * complete sequence of skips made by one checker. Bits 0 - 4 hold the start
+ * index, bits 5 - 9 the end index, bit 10 is set if the checker became a king
+ * during the turn and bits 32 - 63 hold the mask of the skipped checkers.
+ *
+ * @author Dawid Cieślik
+ */
+public final class Turn {
+
+    /**
+     * The mask of a single 5-bit index.
+     */
+    private static final int INDEX_MASK = 0x1F;
+
+    /**
+     * The flag set for turns which promote the checker to a king.
+     */
+    private static final long PROMOTED_FLAG = 1L << 10;
+
+    /**
+     * A value that never represents a valid turn.
+     */
+    public static final long NONE = -1L;
+
+    /**
+     * Utility class, no instances.
+     */
+    private Turn() {
+    }
+
+    /**
+     * Creates a turn.
+     *
+     * @param startIndex the start index of the checker (from 0 to 31).
+     * @param endIndex the end index of the checker (from 0 to 31).
+     * @param captured the mask of the skipped checkers, 0 for a single move.
+     * @param promoted true if the checker becomes a king during the turn.
+     * @return the packed turn.
+     */
+    public static long of(int startIndex, int endIndex, int captured, boolean promoted) {
+        return startIndex | (endIndex << 5) | (promoted ? PROMOTED_FLAG : 0)
+                | ((long) captured << 32);
+    }
+
+    /**
+     * Gets the start index of a packed turn.
+     *
+     * @param turn the packed turn.
+     * @return the start index.
+     */
+    public static int getStart(long turn) {
+        return (int) turn & INDEX_MASK;
+    }
+
+    /**
+     * Gets the end index of a packed turn.
+     *
+     * @param turn the packed turn.
+     * @return the end index.
+     */
+    public static int getEnd(long turn) {
+        return (int) (turn >>> 5) & INDEX_MASK;
+    }
+
+    /**
+     * Gets the mask of the checkers skipped in a packed turn.
+     *
+     * @param turn the packed turn.
+     * @return the mask of the skipped checkers, 0 for a single move.
+     */
+    public static int getCaptured(long turn) {
+        return (int) (turn >>> 32);
+    }
+
+    /**
+     * Gets the number of checkers skipped in a packed turn.
+     *
+     * @param turn the packed turn.
+     * @return the number of skips of the turn.
+     */
+    public static int getCaptureCount(long turn) {
+        return Integer.bitCount(getCaptured(turn));
+    }
+
+    /**
+     * Checks if the checker becomes a king during a packed turn.
+     *
+     * @param turn the packed turn.
+     * @return true if the checker is promoted.
+     */
+    public static boolean isPromoted(long turn) {
+        return (turn & PROMOTED_FLAG) != 0;
+    }
+
+    /**
+     * Gets a readable form of a packed turn, for example "20-16" or "22x6".
+     *
+     * @param turn the packed turn.
+     * @return the turn as a string.
+     */
+    public static String toString(long turn) {
+        return getStart(turn) + (getCaptured(turn) != 0 ? "x" : "-") + getEnd(turn);
+    }
+}
@@ -0,0 +1,115 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of packed turns (see {@link Turn}). Clearing the list keeps
+ * its storage, so one instance can be used for any number of generations.
+ *
+ * @author Dawid Cieślik
+ */
+public class TurnList {
+
+    /**
+     * The default capacity, enough for the turns of most game states.
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The packed turns.
+     */
+    private long[] turns;
+
+    /**
+     * The number of turns in the list.
+     */
+    private int size;
+
+    /**
+     * Class constructor.
+     */
+    public TurnList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Class constructor.
+     *
+     * @param capacity the initial capacity of the list.
+     */
+    public TurnList(int capacity) {
+        this.turns = new long[Math.max(1, capacity)];
+    }
+
+    /**
+     * Adds a packed turn at the end of the list.
+     *
+     * @param turn the packed turn.
+     */
+    public void add(long turn) {
+        if (size == turns.length) {
+            turns = Arrays.copyOf(turns, size * 2);
+        }
+        turns[size++] = turn;
+    }
+
+    /**
+     * Gets the packed turn at the specified position.
+     *
+     * @param i the position in the list.
+     * @return the packed turn.
+     */
+    public long get(int i) {
+        return turns[i];
+    }
+
+    /**
+     * Replaces the packed turn at the specified position.
+     *
+     * @param i the position in the list.
+     * @param turn the new packed turn.
+     */
+    public void set(int i, long turn) {
+        turns[i] = turn;
+    }
+
+    /**
+     * Checks if the list holds the specified packed turn.
+     *
+     * @param turn the packed turn.
+     * @return true if the turn is in the list.
+     */
+    public boolean contains(long turn) {
+        for (int i = 0; i < size; i++) {
+            if (turns[i] == turn) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of turns in the list.
+     *
+     * @return the number of turns.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the list has no turns.
+     *
+     * @return true if the list is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all turns from the list, keeping its storage.
+     */
+    public void clear() {
+        size = 0;
+    }
+}
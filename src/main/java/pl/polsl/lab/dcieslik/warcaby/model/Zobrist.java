@@ -0,0 +1,106 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Holds the random keys used to hash game states into 64-bit values. The key
+ * of a state is the XOR of the keys of every piece on its tile, of the side to
+ * move and of the index of the last skip, so it can be updated incrementally
+ * whenever a tile, the turn or the skip index changes.
+ *
+ * @author Dawid Cieślik
+ */
+public final class Zobrist {
+
+    /**
+     * The seed of the keys, fixed so that hashes are the same in every run.
+     */
+    private static final long SEED = 0x5741524341425941L;
+
+    /**
+     * The keys of each piece ID (1 to 4) on each index.
+     */
+    private static final long[] PIECES = new long[5 * 32];
+
+    /**
+     * The keys of each skip index, shifted by one so that -1 has key 0.
+     */
+    private static final long[] SKIPS = new long[33];
+
+    /**
+     * The key XORed in when it is white player turn.
+     */
+    private static final long WHITE_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 32; i < PIECES.length; i++) {
+            PIECES[i] = random.nextLong();
+        }
+        for (int i = 1; i < SKIPS.length; i++) {
+            SKIPS[i] = random.nextLong();
+        }
+        WHITE_TO_MOVE = random.nextLong();
+    }
+
+    /**
+     * Utility class, no instances.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a piece on a black tile.
+     *
+     * @param id the ID of the piece (an empty tile has key 0).
+     * @param index the index of the black tile (from 0 to 31).
+     * @return the key of the piece.
+     */
+    public static long piece(int id, int index) {
+        return id <= 0 ? 0 : PIECES[id * 32 + index];
+    }
+
+    /**
+     * Gets the key of the side to move and the index of the last skip.
+     *
+     * @param isP1Turn the flag of a turn.
+     * @param skipIndex the index of the last skip this turn, or -1.
+     * @return the key of the turn.
+     */
+    public static long turn(boolean isP1Turn, int skipIndex) {
+        return (isP1Turn ? WHITE_TO_MOVE : 0) ^ skip(skipIndex);
+    }
+
+    /**
+     * Gets the key of the index of the last skip.
+     *
+     * @param skipIndex the index of the last skip this turn, or -1.
+     * @return the key of the skip index.
+     */
+    public static long skip(int skipIndex) {
+        return Board.isValidIndex(skipIndex) ? SKIPS[skipIndex + 1] : 0;
+    }
+
+    /**
+     * Gets the key XORed in when it is white player turn.
+     *
+     * @return the key of the side to move.
+     */
+    public static long side() {
+        return WHITE_TO_MOVE;
+    }
+
+    /**
+     * Computes the key of a board from scratch, without the turn.
+     *
+     * @param board the game board.
+     * @return the key of all the pieces on the board.
+     */
+    public static long hash(Board board) {
+        long key = 0;
+        for (int i = 0; i < 32; i++) {
+            key ^= piece(board.get(i), i);
+        }
+        return key;
+    }
+}
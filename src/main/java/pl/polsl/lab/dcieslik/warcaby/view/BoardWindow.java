@@ -1,14 +1,26 @@
 package pl.polsl.lab.dcieslik.warcaby.view;
 
 import pl.polsl.lab.dcieslik.warcaby.controller.*;
+import pl.polsl.lab.dcieslik.warcaby.engine.*;
 import pl.polsl.lab.dcieslik.warcaby.model.*;
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Implements a graphical user interface that is capable of drawing any checkers
  * game state. It also handles in-game actions such as click on a black tile or
- * move a checker.
+ * move a checker. The black player can be played by the computer, which
+ * searches on its own thread with a {@link DeadlineSearch} and hands its turn
+ * back to the event dispatch thread, so the window never waits for the engine.
+ * It plays the opening from {@link #BOOK_FILE} if there is one.
+ * On request it also shows the best turn of the side to move and its score,
+ * from an analysis on another thread that refines them as it goes deeper.
  *
  * @author Dawid Cieślik
  */
@@ -19,6 +31,21 @@ public class BoardWindow extends JButton {
      */
     private static final int PADDING = 32;
 
+    /**
+     * The time the computer player may think about a turn, in milliseconds.
+     */
+    private static final long BOT_MILLIS = 300;
+
+    /**
+     * The time an analysis of a game state may take, in milliseconds.
+     */
+    private static final long ANALYSIS_MILLIS = 10_000;
+
+    /**
+     * The opening book of the computer player, in the working directory.
+     */
+    private static final Path BOOK_FILE = Paths.get("book.bin");
+
     /**
      * The game of checkers that is being played.
      */
@@ -44,6 +71,106 @@ public class BoardWindow extends JButton {
      */
     private final Player player1, player2;
 
+    /**
+     * The thread the computer player searches on.
+     */
+    private final ExecutorService engine = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The thread the analysis shown on the board runs on.
+     */
+    private final ExecutorService analysisThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The search of the analysis, created when it is first needed.
+     */
+    private DeadlineSearch analyzer;
+
+    /**
+     * The analysis of the current game state, or null.
+     */
+    private DeadlineSearch.Ponder analysis;
+
+    /**
+     * The analysis running on {@link #analysisThread}, read by the listener
+     * of {@link #analyzer} to tell which analysis a result belongs to.
+     */
+    private volatile DeadlineSearch.Ponder runningAnalysis;
+
+    /**
+     * The game state of {@link #analysis}, packed as by
+     * {@link Game#getStateHigh()} and {@link Game#getStateLow()}.
+     */
+    private long analysisHigh, analysisLow;
+
+    /**
+     * The deepest completed iteration of {@link #analysis}, or null.
+     */
+    private SearchResult analysisResult;
+
+    /**
+     * The flag indicating if the analysis of every game state is shown.
+     */
+    private boolean overlayEnabled;
+
+    /**
+     * The flag indicating if the analysis of the current game state was
+     * asked for with a hint.
+     */
+    private boolean hintShown;
+
+    /**
+     * The search of the computer player, created when it is first enabled.
+     */
+    private DeadlineSearch bot;
+
+    /**
+     * The flag indicating if the computer plays the black player.
+     */
+    private boolean botEnabled;
+
+    /**
+     * The flag indicating if the computer player is searching a turn.
+     */
+    private boolean thinking;
+
+    /**
+     * The flag indicating if the computer player searches the expected reply
+     * while the human player thinks.
+     */
+    private boolean ponderEnabled;
+
+    /**
+     * The pondering search of the game state after the expected reply of the
+     * human player, or null.
+     */
+    private DeadlineSearch.Ponder ponder;
+
+    /**
+     * The game state searched by {@link #ponder}, packed as by
+     * {@link Game#getStateHigh()} and {@link Game#getStateLow()}.
+     */
+    private long ponderHigh, ponderLow;
+
+    /**
+     * The turn found by {@link #ponder} if it ended before the human player
+     * moved, or null.
+     */
+    private BotTurn ponderTurn;
+
+    /**
+     * The pondering search that was hit and whose turn is awaited, or null.
+     */
+    private DeadlineSearch.Ponder hitPonder;
+
     /**
      * Class constructor.
      *
@@ -64,10 +191,280 @@ public class BoardWindow extends JButton {
     }
 
     /**
-     * Redraws the component graphics.
+     * Redraws the component graphics and lets the computer player search its
+     * turn if it is to move.
      */
     public void update() {
         repaint();
+        if (analysis != null && !game.isState(analysisHigh, analysisLow)) {
+            stopAnalysis();
+            hintShown = false;
+        }
+        if (overlayEnabled) {
+            analyse();
+        }
+        requestBotTurn();
+    }
+
+    /**
+     * Shows the best turn of the side to move and its score until the game
+     * state changes.
+     */
+    public void showHint() {
+        hintShown = true;
+        analyse();
+        repaint();
+    }
+
+    /**
+     * Shows or hides the analysis of every game state.
+     *
+     * @param enabled true to show the analysis.
+     */
+    public void setOverlayEnabled(boolean enabled) {
+        this.overlayEnabled = enabled;
+        if (enabled) {
+            analyse();
+        } else if (!hintShown) {
+            stopAnalysis();
+        }
+        repaint();
+    }
+
+    /**
+     * Starts the analysis of the current game state on its thread, unless it
+     * is analysed already. Each completed iteration is handed to the event
+     * dispatch thread and shown while the game state stays the same.
+     */
+    private void analyse() {
+        if (game.isGameOver() || analysisThread.isShutdown()
+                || analysis != null && game.isState(analysisHigh, analysisLow)) {
+            return;
+        }
+        stopAnalysis();
+        if (analyzer == null) {
+            analyzer = new DeadlineSearch();
+            analyzer.setListener(result -> {
+                DeadlineSearch.Ponder source = runningAnalysis;
+                SwingUtilities.invokeLater(() -> {
+                    if (source == analysis) {
+                        analysisResult = result;
+                        repaint();
+                    }
+                });
+            });
+        }
+
+        DeadlineSearch.Ponder started = analyzer.newPonder();
+        started.hit(ANALYSIS_MILLIS);
+        analysis = started;
+        analysisHigh = game.getStateHigh();
+        analysisLow = game.getStateLow();
+        Game position = game.copy();
+        analysisThread.execute(() -> {
+            runningAnalysis = started;
+            started.run(position);
+        });
+    }
+
+    /**
+     * Cancels the analysis and forgets its result.
+     */
+    private void stopAnalysis() {
+        if (analysis != null) {
+            analysis.cancel();
+            analysis = null;
+        }
+        analysisResult = null;
+    }
+
+    /**
+     * Lets the computer play the black player or gives it back to a human.
+     *
+     * @param enabled true if the computer plays the black player.
+     */
+    public void setBotEnabled(boolean enabled) {
+        if (enabled && bot == null) {
+            bot = new DeadlineSearch();
+            bot.setBook(openBook());
+        }
+        this.botEnabled = enabled;
+        if (!enabled) {
+            cancelPonder();
+        }
+        update();
+    }
+
+    /**
+     * Opens the opening book of the computer player.
+     *
+     * @return the book, or null if there is none or it cannot be read.
+     */
+    private static OpeningBook openBook() {
+        if (!Files.isRegularFile(BOOK_FILE)) {
+            return null;
+        }
+        try {
+            return new OpeningBook(BOOK_FILE);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Lets the computer player search its answer to the expected reply while
+     * the human player thinks.
+     *
+     * @param enabled true if the computer player ponders.
+     */
+    public void setPonderEnabled(boolean enabled) {
+        this.ponderEnabled = enabled;
+        if (!enabled) {
+            cancelPonder();
+            update();
+        }
+    }
+
+    /**
+     * Checks if the computer player is to move, so that clicks on the board
+     * are ignored.
+     *
+     * @return true if the computer plays the side to move.
+     */
+    public boolean isBotTurn() {
+        return botEnabled && !game.isP1Turn();
+    }
+
+    /**
+     * Stops the thread of the computer player for good, when the window is
+     * closed.
+     */
+    public void shutdown() {
+        botEnabled = false;
+        cancelPonder();
+        stopAnalysis();
+        if (bot != null) {
+            bot.stop();
+        }
+        engine.shutdownNow();
+        analysisThread.shutdownNow();
+    }
+
+    /**
+     * Gets the computer player a turn if it is to move and not searching yet.
+     * If it pondered the game state, the pondering search is hit and its turn
+     * awaited; otherwise the pondering search is cancelled and a new search
+     * started on the thread of the computer player. The turn found is applied
+     * on the event dispatch thread, unless the game state changed in the
+     * meantime.
+     */
+    private void requestBotTurn() {
+        if (!isBotTurn() || thinking || engine.isShutdown()) {
+            return;
+        }
+        if (game.isGameOver()) {
+            cancelPonder();
+            return;
+        }
+
+        thinking = true;
+        if (ponder != null && game.isState(ponderHigh, ponderLow)) {
+            BotTurn found = ponderTurn;
+            if (found != null) {
+                ponder = null;
+                ponderTurn = null;
+                SwingUtilities.invokeLater(() -> playBotTurn(found));
+            } else {
+                hitPonder = ponder;
+                ponder = null;
+                hitPonder.hit(BOT_MILLIS);
+            }
+            return;
+        }
+        cancelPonder();
+
+        long expectedHigh = game.getStateHigh(), expectedLow = game.getStateLow();
+        Game position = game.copy();
+        engine.execute(() -> {
+            BotTurn turn = new BotTurn(position, bot.search(position, BOT_MILLIS), expectedHigh, expectedLow);
+            SwingUtilities.invokeLater(() -> playBotTurn(turn));
+        });
+    }
+
+    /**
+     * Applies a turn of the computer player and starts pondering the reply
+     * it expects.
+     *
+     * @param turn the turn.
+     */
+    private void playBotTurn(BotTurn turn) {
+        thinking = false;
+        if (!botEnabled || turn.empty
+                || !setGameState(turn.newHigh, turn.newLow, turn.expectedHigh, turn.expectedLow)) {
+            update();
+            return;
+        }
+        if (ponderEnabled && turn.hasReply && !game.isGameOver()) {
+            startPonder(turn.replyHigh, turn.replyLow);
+        }
+    }
+
+    /**
+     * Starts searching the answer to the expected reply of the human player
+     * on the thread of the computer player.
+     *
+     * @param high the high long of the game state after the reply.
+     * @param low the low long of the game state after the reply.
+     */
+    private void startPonder(long high, long low) {
+        DeadlineSearch.Ponder started = bot.newPonder();
+        ponder = started;
+        ponderHigh = high;
+        ponderLow = low;
+        ponderTurn = null;
+        Game position = new Game();
+        position.setState(high, low);
+        engine.execute(() -> {
+            SearchResult result = started.run(position);
+            if (result != null) {
+                BotTurn turn = new BotTurn(position, result, high, low);
+                SwingUtilities.invokeLater(() -> ponderDone(started, turn));
+            }
+        });
+    }
+
+    /**
+     * Receives the turn of a pondering search. The turn is kept if the human
+     * player has not moved yet, played if the search was hit and dropped if
+     * it was cancelled.
+     *
+     * @param done the pondering search.
+     * @param turn the turn it found.
+     */
+    private void ponderDone(DeadlineSearch.Ponder done, BotTurn turn) {
+        if (done == ponder) {
+            ponderTurn = turn;
+        } else if (done == hitPonder) {
+            hitPonder = null;
+            playBotTurn(turn);
+        }
+    }
+
+    /**
+     * Cancels the pondering search, including a hit one whose turn is
+     * awaited.
+     */
+    private void cancelPonder() {
+        if (ponder != null) {
+            ponder.cancel();
+            ponder = null;
+            ponderTurn = null;
+        }
+        if (hitPonder != null) {
+            hitPonder.cancel();
+            hitPonder = null;
+            thinking = false;
+        }
     }
 
     /**
@@ -178,8 +575,15 @@ public class BoardWindow extends JButton {
             }
         }
 
+        if (overlayEnabled || hintShown) {
+            paintAnalysis(g2d, OFFSET_X, OFFSET_Y, BOX_SIZE);
+        }
+
         String msg = game.isP1Turn() ? ("Tura Gracza 1 (" + player1.getName() + ")")
                 : ("Tura Gracza 2 (" + player2.getName() + ")");
+        if (thinking) {
+            msg += " - komputer myśli...";
+        }
         g.setFont(new Font("Arial", Font.BOLD, 20));
         int width = g.getFontMetrics().stringWidth(msg);
         Color back = game.isP1Turn() ? Color.WHITE : Color.BLACK;
@@ -204,21 +608,126 @@ public class BoardWindow extends JButton {
     }
 
     /**
-     * Sets a new game state.
+     * Draws the analysis of the current game state: an arrow along the best
+     * turn and, above the board, its score for the side to move and the depth
+     * of the analysis.
      *
-     * @param newState new game state to be set.
-     * @param expected expected game state.
+     * @param g the graphics context.
+     * @param offsetX the x-coordinate of the board.
+     * @param offsetY the y-coordinate of the board.
+     * @param boxSize the size of a tile.
+     */
+    private void paintAnalysis(Graphics2D g, int offsetX, int offsetY, int boxSize) {
+        if (analysis == null) {
+            return;
+        }
+
+        String msg = "Analiza...";
+        SearchResult result = analysisResult;
+        if (result != null && result.getBestTurn() != Turn.NONE) {
+            Point start = Board.toPoint(Turn.getStart(result.getBestTurn()));
+            Point end = Board.toPoint(Turn.getEnd(result.getBestTurn()));
+            Stroke stroke = g.getStroke();
+            g.setStroke(new BasicStroke(Math.max(2, boxSize / 8f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            g.setColor(new Color(30, 144, 255, 180));
+            int x1 = offsetX + start.x * boxSize + boxSize / 2, y1 = offsetY + start.y * boxSize + boxSize / 2;
+            int x2 = offsetX + end.x * boxSize + boxSize / 2, y2 = offsetY + end.y * boxSize + boxSize / 2;
+            g.drawLine(x1, y1, x2, y2);
+            g.fillOval(x2 - boxSize / 6, y2 - boxSize / 6, boxSize / 3, boxSize / 3);
+            g.setStroke(stroke);
+
+            String score = result.isWinScore() ? (result.getScore() > 0 ? "wygrana" : "przegrana")
+                    : String.format("%+.2f", result.getScore() / 100.0);
+            msg = "Ocena: " + score + ", głębokość " + result.getDepth();
+        }
+
+        g.setFont(new Font("Arial", Font.BOLD, 16));
+        int width = g.getFontMetrics().stringWidth(msg);
+        g.setColor(new Color(240, 240, 255));
+        g.fillRoundRect(getWidth() / 2 - width / 2 - 5, offsetY - 24, width + 10, 22, 10, 10);
+        g.setColor(Color.BLUE.darker());
+        g.drawString(msg, getWidth() / 2 - width / 2, offsetY - 8);
+    }
+
+    /**
+     * Sets a new game state, given in the packed form of
+     * {@link Game#getStateHigh()} and {@link Game#getStateLow()}.
+     *
+     * @param newHigh the high long of the new game state.
+     * @param newLow the low long of the new game state.
+     * @param expectedHigh the high long of the expected game state.
+     * @param expectedLow the low long of the expected game state.
      * @return true if set a new game state, false if current game state was not
      * as expected.
      */
-    public boolean setGameState(String newState, String expected) {
-        if (!game.getGameState().equals(expected)) {
+    public boolean setGameState(long newHigh, long newLow, long expectedHigh, long expectedLow) {
+        if (!game.isState(expectedHigh, expectedLow)) {
             return false;
         }
 
-        this.game.setGameState(newState);
+        this.game.setState(newHigh, newLow);
         update();
 
         return true;
     }
+
+    /**
+     * A turn found by the computer player, as sent from its thread.
+     */
+    private static class BotTurn {
+
+        /**
+         * The packed game state after the turn.
+         */
+        private final long newHigh, newLow;
+
+        /**
+         * The packed game state the turn was searched in.
+         */
+        private final long expectedHigh, expectedLow;
+
+        /**
+         * The flag set if the search found no legal turn, so there is nothing
+         * to play.
+         */
+        private final boolean empty;
+
+        /**
+         * The flag set if the search expects a reply to the turn.
+         */
+        private final boolean hasReply;
+
+        /**
+         * The packed game state after the expected reply.
+         */
+        private final long replyHigh, replyLow;
+
+        /**
+         * Class constructor.
+         *
+         * @param position the game searched, changed by the turn if there is
+         * one.
+         * @param result the result of the search.
+         * @param expectedHigh the high long of the game state searched.
+         * @param expectedLow the low long of the game state searched.
+         */
+        BotTurn(Game position, SearchResult result, long expectedHigh, long expectedLow) {
+            this.expectedHigh = expectedHigh;
+            this.expectedLow = expectedLow;
+            this.empty = result.getBestTurn() == Turn.NONE;
+            if (!empty) {
+                position.makeTurn(result.getBestTurn());
+            }
+            this.newHigh = position.getStateHigh();
+            this.newLow = position.getStateLow();
+            long[] pv = result.getPv();
+            this.hasReply = !empty && pv.length > 1 && pv[0] == result.getBestTurn()
+                    && MoveLogic.isValidTurn(position, pv[1]);
+            if (hasReply) {
+                position.makeTurn(pv[1]);
+            }
+            this.replyHigh = position.getStateHigh();
+            this.replyLow = position.getStateLow();
+        }
+    }
 }
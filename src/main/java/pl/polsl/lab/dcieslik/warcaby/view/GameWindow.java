@@ -32,6 +32,27 @@ public class GameWindow extends JFrame {
      */
     private final JButton restartBtn;
 
+    /**
+     * Check box letting the computer play the black player.
+     */
+    private final JCheckBox botBox;
+
+    /**
+     * Check box letting the computer player think while the human player
+     * does.
+     */
+    private final JCheckBox ponderBox;
+
+    /**
+     * Hint button showing the best turn of the side to move.
+     */
+    private final JButton hintBtn;
+
+    /**
+     * Check box showing the analysis of every game state on the board.
+     */
+    private final JCheckBox analysisBox;
+
     /**
      * The checker board component playing the updatable game.
      */
@@ -58,11 +79,28 @@ public class GameWindow extends JFrame {
         restartBtn = new JButton("Restart");
         ButtonListener listener = new ButtonListener();
         restartBtn.addActionListener(listener);
+        botBox = new JCheckBox("Komputer gra czarnymi");
+        botBox.addActionListener(listener);
+        ponderBox = new JCheckBox("Komputer myśli w czasie ruchu gracza");
+        ponderBox.addActionListener(listener);
+        hintBtn = new JButton("Podpowiedź");
+        hintBtn.addActionListener(listener);
+        analysisBox = new JCheckBox("Analiza");
+        analysisBox.addActionListener(listener);
         board = new BoardWindow(this, player1, player2);
         playersPanel = new PlayersPanel(player1, player2);
 
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(restartBtn, BorderLayout.CENTER);
+        JPanel options = new JPanel(new GridLayout(0, 1));
+        options.add(botBox);
+        options.add(ponderBox);
+        options.add(analysisBox);
+        top.add(options, BorderLayout.EAST);
+        top.add(hintBtn, BorderLayout.WEST);
+
         JPanel layout = new JPanel(new BorderLayout());
-        layout.add(restartBtn, BorderLayout.NORTH);
+        layout.add(top, BorderLayout.NORTH);
         layout.add(board, BorderLayout.CENTER);
         layout.add(playersPanel, BorderLayout.SOUTH);
         add(layout);
@@ -77,7 +115,7 @@ public class GameWindow extends JFrame {
     }
 
     /**
-     * Responds to the restart button when it is clicked.
+     * Responds to the buttons and check boxes when they are clicked.
      */
     private class ButtonListener implements ActionListener {
 
@@ -86,9 +124,18 @@ public class GameWindow extends JFrame {
             Object src = e.getSource();
 
             if (src == restartBtn) {
+                board.shutdown();
                 dispose();
                 Menu menu = new Menu();
                 menu.setVisible(true);
+            } else if (src == botBox) {
+                board.setBotEnabled(botBox.isSelected());
+            } else if (src == ponderBox) {
+                board.setPonderEnabled(ponderBox.isSelected());
+            } else if (src == hintBtn) {
+                board.showHint();
+            } else if (src == analysisBox) {
+                board.setOverlayEnabled(analysisBox.isSelected());
             }
         }
     }
@@ -0,0 +1,222 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of DeadlineSearch and LatencyHistogram classes.
+ *
+ * @author Dawid Cieślik
+ */
+public class DeadlineSearchTest {
+
+    /**
+     * The directory of the book files.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Test of search method, of class DeadlineSearch.
+     *
+     * @param state the game state.
+     * @param millis the budget of each search in milliseconds.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,30", "111111111011000000202210222222221-1,10",
+        "000000000202020000220000000300001-1,1"})
+    public void testSearch(String state, long millis) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        DeadlineSearch search = new DeadlineSearch(new Search(new Evaluator(), new TranspositionTable(1)));
+
+        //WHEN
+        long start = System.nanoTime();
+        SearchResult first = search.search(game, millis);
+        SearchResult second = search.search(game, millis);
+        long elapsed = System.nanoTime() - start;
+
+        //THEN
+        assertEquals(state, game.getGameState());
+        assertTrue(MoveLogic.isValidTurn(game, first.getBestTurn()));
+        assertTrue(MoveLogic.isValidTurn(game, second.getBestTurn()));
+        assertEquals(2, search.getLatencies().getCount());
+        assertTrue(search.getLatencies().getMax() <= elapsed);
+        assertTrue(elapsed < (2 * millis + 200) * 1_000_000);
+    }
+
+    /**
+     * Test of searchUntil method with a deadline already passed, of class
+     * DeadlineSearch.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"222222222222000000001111111111111-1"})
+    public void testSearchUntil_Passed(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        DeadlineSearch search = new DeadlineSearch(new Search(new Evaluator(), new TranspositionTable(1)));
+
+        //WHEN
+        SearchResult result = search.searchUntil(game, System.nanoTime() - 1_000_000);
+
+        //THEN
+        assertTrue(MoveLogic.isValidTurn(game, result.getBestTurn()));
+        assertEquals(1, search.getLateCount());
+    }
+
+    /**
+     * Test of search method with an opening book, of class DeadlineSearch,
+     * and of the same book played by a pondering search and a bot.
+     *
+     * @param first the position of the book turn among the turns of the
+     * start position.
+     * @param reply the position of the book reply among the turns after it,
+     * or -1 for none.
+     * @throws IOException if the book cannot be written.
+     */
+    @ParameterizedTest
+    @CsvSource({"0,0", "3,1", "6,-1"})
+    public void testSearch_Book(int first, int reply) throws IOException {
+
+        //GIVEN
+        Game game = new Game();
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        long turn = turns.get(first);
+        Game next = game.copy();
+        next.makeTurn(turn);
+        TurnList replies = new TurnList();
+        BitboardMoveGenerator.generateTurns(next.getExactBoard(), next.isP1Turn(), next.getSkipIndex(), replies);
+        long expReply = reply < 0 ? Turn.NONE : replies.get(reply);
+        Path file = directory.resolve("book.bin");
+        if (reply < 0) {
+            OpeningBook.write(file, new long[]{game.getKey()}, new int[]{TranspositionTable.encodeMove(turn)},
+                    new int[]{1});
+        } else {
+            OpeningBook.write(file, new long[]{game.getKey(), next.getKey()},
+                    new int[]{TranspositionTable.encodeMove(turn), TranspositionTable.encodeMove(expReply)},
+                    new int[]{1, 1});
+        }
+        OpeningBook book = new OpeningBook(file);
+        DeadlineSearch search = new DeadlineSearch(new Search(new Evaluator(), new TranspositionTable(1)));
+        search.setBook(book);
+
+        //WHEN
+        SearchResult result = search.search(game, 1_000);
+        SearchResult pondered = search.newPonder().run(game);
+        SearchResult outside = search.search(next, 10);
+
+        //THEN
+        assertEquals(turn, result.getBestTurn());
+        assertEquals(0, result.getDepth());
+        assertArrayEquals(reply < 0 ? new long[]{turn} : new long[]{turn, expReply}, result.getPv());
+        assertTrue(result.getNanos() < 100_000_000L);
+        assertEquals(turn, pondered.getBestTurn());
+        assertEquals(reply < 0, outside.getDepth() > 0);
+        assertEquals(turn, Bot.withBook(Bot.random(first), book).play(game));
+        assertEquals(2, search.getLatencies().getCount());
+    }
+
+    /**
+     * Test of run, hit and cancel methods, of class DeadlineSearch.Ponder.
+     *
+     * @param hit true to hit the pondering search, false to cancel it.
+     * @throws Exception if the searching thread fails.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testPonder(boolean hit) throws Exception {
+
+        //GIVEN
+        Game game = new Game();
+        DeadlineSearch search = new DeadlineSearch(new Search(new Evaluator(), new TranspositionTable(1)));
+        DeadlineSearch.Ponder ponder = search.newPonder();
+        DeadlineSearch.Ponder cancelled = search.newPonder();
+        SearchResult[] result = new SearchResult[1];
+        List<Integer> depths = new CopyOnWriteArrayList<>();
+        search.setListener(r -> depths.add(r.getDepth()));
+        Thread thread = new Thread(() -> result[0] = ponder.run(game));
+
+        //WHEN
+        cancelled.cancel();
+        SearchResult none = cancelled.run(game);
+        thread.start();
+        Thread.sleep(30);
+        long start = System.nanoTime();
+        if (hit) {
+            ponder.hit(20);
+        } else {
+            ponder.cancel();
+        }
+        thread.join(5_000);
+        long elapsed = System.nanoTime() - start;
+
+        //THEN
+        assertNull(none);
+        assertFalse(thread.isAlive());
+        assertTrue(MoveLogic.isValidTurn(game, result[0].getBestTurn()));
+        assertTrue(elapsed < 1_000_000_000L);
+        assertEquals(hit ? 1 : 0, search.getLatencies().getCount());
+        assertFalse(depths.isEmpty());
+        for (int i = 1; i < depths.size(); i++) {
+            assertEquals(depths.get(i - 1) + 1, depths.get(i));
+        }
+        assertEquals(depths.get(depths.size() - 1), result[0].getDepth());
+        ponder.cancel();
+        ponder.hit(1);
+        assertTrue(MoveLogic.isValidTurn(game, search.search(game, 10).getBestTurn()));
+    }
+
+    /**
+     * Test of getPercentile method, of class LatencyHistogram.
+     *
+     * @param seed the seed of the random durations.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3})
+    public void testGetPercentile(long seed) {
+
+        //GIVEN
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(seed);
+        long[] durations = new long[1000];
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = (long) (Math.exp(random.nextDouble() * 20));
+        }
+
+        //WHEN
+        for (long d : durations) {
+            histogram.record(d);
+        }
+
+        //THEN
+        Arrays.sort(durations);
+        assertEquals(durations.length, histogram.getCount());
+        assertEquals(durations[durations.length - 1], histogram.getMax());
+        assertEquals(durations[durations.length - 1], histogram.getPercentile(100));
+        for (int percent : new int[]{1, 50, 90, 99}) {
+            long exact = durations[percent * durations.length / 100 - 1];
+            long estimate = histogram.getPercentile(percent);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 32 + 1, percent + "%: " + estimate);
+        }
+        for (long d : durations) {
+            int bucket = LatencyHistogram.bucket(d);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= d);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < d);
+        }
+    }
+}
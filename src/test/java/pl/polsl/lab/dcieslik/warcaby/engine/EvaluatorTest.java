@@ -0,0 +1,80 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of Evaluator class.
+ *
+ * @author Dawid Cieślik
+ */
+public class EvaluatorTest {
+
+    /**
+     * Test of make and unmake methods, of class Evaluator.
+     *
+     * @param seed the seed of the random turns.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 2, 3, 42, 2024})
+    public void testMake_Unmake(long seed) {
+
+        //GIVEN
+        Random random = new Random(seed);
+        Game game = new Game(null);
+        Evaluator evaluator = new Evaluator();
+        evaluator.reset(game);
+        int start = evaluator.evaluate(game);
+        TurnList turns = new TurnList();
+        int made = 0;
+
+        //WHEN
+        while (made < 150) {
+            turns.clear();
+            BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+            if (turns.isEmpty()) {
+                break;
+            }
+            long turn = turns.get(random.nextInt(turns.size()));
+            evaluator.make(game.getExactBoard(), turn);
+            game.makeTurn(turn);
+            made++;
+
+            //THEN
+            assertEquals(evaluator.evaluateFromScratch(game), evaluator.evaluate(game));
+        }
+        for (int i = 0; i < made; i++) {
+            game.unmakeMove();
+            evaluator.unmake();
+            assertEquals(evaluator.evaluateFromScratch(game), evaluator.evaluate(game));
+        }
+        assertEquals(start, evaluator.evaluate(game));
+    }
+
+    /**
+     * Test of evaluateFromScratch method, of class Evaluator.
+     *
+     * @param state the game state.
+     * @param expected the sign of the expected score: -1, 0 or 1.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,0", "222222222222000000001111111111110-1,0",
+        "000000000200000002000010000000001-1,-1", "000300000000000002000000000010001-1,1",
+        "000300000000000002000000000010000-1,-1"})
+    public void testEvaluateFromScratch(String state, int expected) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+
+        //WHEN
+        int result = new Evaluator().evaluateFromScratch(game);
+
+        //THEN
+        assertEquals(expected, Integer.signum(result));
+    }
+}
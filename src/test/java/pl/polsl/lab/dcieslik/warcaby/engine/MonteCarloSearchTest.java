@@ -0,0 +1,95 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of MonteCarloSearch class.
+ *
+ * @author Dawid Cieślik
+ */
+public class MonteCarloSearchTest {
+
+    /**
+     * Test of search method, of class MonteCarloSearch.
+     *
+     * @param state the game state.
+     * @param playouts the number of playouts.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,500", "111111111011000000202210222222221-1,300",
+        "000000000202020000220000000300001-1,1000", "000240000000000002000000000030001-1,200"})
+    public void testSearch(String state, int playouts) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        MonteCarloSearch single = new MonteCarloSearch(1);
+        MonteCarloSearch parallel = new MonteCarloSearch(3);
+        MonteCarloSearch caller = new MonteCarloSearch(null, MonteCarloSearch.DEFAULT_BATCH);
+
+        //WHEN
+        SearchResult result = single.search(game, playouts);
+        SearchResult other = parallel.search(game, playouts);
+        SearchResult own = caller.search(game, playouts);
+        single.shutdown();
+        parallel.shutdown();
+
+        //THEN
+        assertEquals(state, game.getGameState());
+        assertEquals(playouts, result.getNodes());
+        assertEquals(result.getBestTurn(), other.getBestTurn());
+        assertArrayEquals(result.getPv(), other.getPv());
+        assertArrayEquals(result.getPv(), own.getPv());
+        assertEquals(result.getPv()[0], result.getBestTurn());
+        assertTrue(result.getScore() >= 0 && result.getScore() <= 100);
+        for (long turn : result.getPv()) {
+            assertTrue(MoveLogic.isValidTurn(game, turn));
+            game.makeTurn(turn);
+        }
+    }
+
+    /**
+     * Test of search method with a won capture, of class MonteCarloSearch.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"000000000000000002000010000000001-1"})
+    public void testSearch_Win(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+
+        //WHEN
+        SearchResult result = new MonteCarloSearch(1).search(game, 100);
+        game.makeTurn(result.getBestTurn());
+
+        //THEN
+        assertEquals(100, result.getScore());
+        assertTrue(game.isGameOver());
+    }
+
+    /**
+     * Test of search method on a finished game, of class MonteCarloSearch.
+     *
+     * @param state the game state.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"000000000000000002000000000000001-1", "333300000000000000000000000000000-1"})
+    public void testSearch_GameOver(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+
+        //WHEN
+        SearchResult result = new MonteCarloSearch(1).search(game, 100);
+
+        //THEN
+        assertEquals(Turn.NONE, result.getBestTurn());
+        assertEquals(0, result.getNodes());
+    }
+}
@@ -0,0 +1,98 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of OpeningBook and OpeningBookBuilder classes.
+ *
+ * @author Dawid Cieślik
+ */
+public class OpeningBookTest {
+
+    /**
+     * The directory of the book files.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Test of write and probe methods, of class OpeningBook.
+     *
+     * @param best the position of the turn with the largest weight among the
+     * turns of the start position.
+     * @throws IOException if the book cannot be written.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 3, 6})
+    public void testWrite_Probe(int best) throws IOException {
+
+        //GIVEN
+        Game game = new Game(null);
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        long[] keys = new long[turns.size() + 2];
+        int[] moves = new int[keys.length], weights = new int[keys.length];
+        for (int i = 0; i < turns.size(); i++) {
+            keys[i] = game.getKey();
+            moves[i] = TranspositionTable.encodeMove(turns.get(i));
+            weights[i] = i == best ? 50 : i;
+        }
+        keys[turns.size()] = game.getKey() - 1;
+        keys[turns.size() + 1] = game.getKey() + 1;
+        Path file = directory.resolve("book.bin");
+        OpeningBook.write(file, keys, moves, weights);
+
+        //WHEN
+        OpeningBook book = new OpeningBook(file);
+        long result = book.probe(game);
+        long chosen = book.probe(game, new Random(best));
+        game.makeTurn(result);
+        long missing = book.probe(game);
+
+        //THEN
+        assertEquals(keys.length, book.size());
+        assertEquals(turns.get(best), result);
+        assertTrue(turns.contains(chosen));
+        assertEquals(Turn.NONE, missing);
+        for (int i = 1; i < book.size(); i++) {
+            assertTrue(book.getKey(i - 1) <= book.getKey(i));
+        }
+    }
+
+    /**
+     * Test of build method, of class OpeningBookBuilder.
+     *
+     * @param games the number of games.
+     * @param threads the number of threads.
+     * @throws IOException if the book cannot be written.
+     */
+    @ParameterizedTest
+    @CsvSource({"3,1", "4,2"})
+    public void testBuild(int games, int threads) throws IOException {
+
+        //GIVEN
+        OpeningBookBuilder builder = new OpeningBookBuilder(4, 2, new SearchLimits(0, 500, 0));
+        Path file = directory.resolve("book.bin"), again = directory.resolve("again.bin");
+
+        //WHEN
+        int records = builder.build(file, games, threads);
+        builder.build(again, games, 1);
+        OpeningBook book = new OpeningBook(file);
+        long turn = book.probe(new Game(null));
+
+        //THEN
+        assertEquals(records, book.size());
+        assertTrue(records >= 4 && records <= 4 * games);
+        assertArrayEquals(Files.readAllBytes(again), Files.readAllBytes(file));
+        assertTrue(MoveLogic.isValidTurn(new Game(null), turn));
+    }
+}
@@ -0,0 +1,68 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of ParallelSearch class.
+ *
+ * @author Dawid Cieślik
+ */
+public class ParallelSearchTest {
+
+    /**
+     * Test of search method with a single thread, of class ParallelSearch.
+     *
+     * @param state the game state.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"222222222222000000001111111111111-1", "111111111011000000202210222222221-1",
+        "222202222220020000110111011101110-1"})
+    public void testSearch_SingleThread(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        SearchResult expResult = new Search(new Evaluator(), new TranspositionTable(1))
+                .search(game, SearchLimits.depth(7));
+
+        //WHEN
+        ParallelSearch search = new ParallelSearch(1, 1);
+        SearchResult result = search.search(game, SearchLimits.depth(7));
+        search.shutdown();
+
+        //THEN
+        assertEquals(expResult.getScore(), result.getScore());
+        assertEquals(expResult.getNodes(), result.getNodes());
+        assertArrayEquals(expResult.getPv(), result.getPv());
+    }
+
+    /**
+     * Test of search method with several threads, of class ParallelSearch.
+     *
+     * @param threads the number of threads.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {2, 4})
+    public void testSearch_Threads(int threads) {
+
+        //GIVEN
+        Game game = new Game(null);
+        ParallelSearch search = new ParallelSearch(threads, 4);
+
+        //WHEN
+        SearchResult result1 = search.search(game, SearchLimits.depth(8));
+        SearchResult result2 = search.search(game, SearchLimits.depth(9));
+        search.shutdown();
+
+        //THEN
+        assertEquals(threads, search.getThreads());
+        assertEquals(8, result1.getDepth());
+        assertEquals(9, result2.getDepth());
+        assertTrue(MoveLogic.isValidTurn(game, result1.getBestTurn()));
+        assertTrue(MoveLogic.isValidTurn(game, result2.getBestTurn()));
+        assertEquals("222222222222000000001111111111111-1", game.getGameState());
+    }
+}
@@ -0,0 +1,172 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of Search class.
+ *
+ * @author Dawid Cieślik
+ */
+public class SearchTest {
+
+    /**
+     * The evaluator used by the search and by the reference minimax.
+     */
+    private final Evaluator evaluator = new Evaluator();
+
+    /**
+     * Scores a game state with a plain minimax search, without pruning. At
+     * the horizon the captures are searched until there are none.
+     *
+     * @param game the game to score.
+     * @param depth the depth in turns.
+     * @param ply the distance from the root.
+     * @return the score for the side to move.
+     */
+    private int minimax(Game game, int depth, int ply) {
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        if (turns.isEmpty()) {
+            return -Search.WIN + ply;
+        }
+        if (depth <= 0 && Turn.getCaptured(turns.get(0)) == 0) {
+            return evaluator.evaluateFromScratch(game);
+        }
+
+        int best = -Search.INFINITY;
+        for (int i = 0; i < turns.size(); i++) {
+            game.makeTurn(turns.get(i));
+            best = Math.max(best, -minimax(game, depth - 1, ply + 1));
+            game.unmakeMove();
+        }
+        return best;
+    }
+
+    /**
+     * Test of search method, of class Search.
+     *
+     * @param state the game state.
+     * @param depth the depth of the search.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,4",
+        "111111111011000000202210222222221-1,4",
+        "000000000200000002000010000000001-1,5",
+        "222202222220020000110111011101110-1,4",
+        "000240000000000002000000000030001-1,5"})
+    public void testSearch(String state, int depth) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        int expResult = minimax(game, depth, 0);
+
+        //WHEN
+        SearchResult result = new Search(evaluator, null).search(game, SearchLimits.depth(depth));
+
+        //THEN
+        assertEquals(state, game.getGameState());
+        assertEquals(expResult, result.getScore());
+        assertTrue(result.getDepth() <= depth);
+        long[] pv = result.getPv();
+        assertEquals(result.getBestTurn(), pv[0]);
+        for (long turn : pv) {
+            assertTrue(MoveLogic.isValidTurn(game, turn), Turn.toString(turn));
+            game.makeTurn(turn);
+        }
+    }
+
+    /**
+     * Test of setOrdering method, of class Search.
+     *
+     * @param state the game state.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"222222222222000000001111111111111-1", "220221020000000212000000101210110-1",
+        "000013000300000000000004000000000-1"})
+    public void testSetOrdering(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        Search unordered = new Search(evaluator, null);
+        unordered.setOrdering(false);
+        SearchResult expResult = unordered.search(game, SearchLimits.depth(6));
+
+        //WHEN
+        SearchResult result = new Search(evaluator, null).search(game, SearchLimits.depth(6));
+
+        //THEN
+        assertEquals(expResult.getScore(), result.getScore());
+        assertEquals(6, result.getDepth());
+    }
+
+    /**
+     * Test of search method with a node limit, of class Search.
+     *
+     * @param maxNodes the number of nodes.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {1, 5000, 200000})
+    public void testSearch_NodeLimit(long maxNodes) {
+
+        //GIVEN
+        Game game = new Game(null);
+
+        //WHEN
+        SearchResult result = new Search().search(game, new SearchLimits(0, maxNodes, 0));
+
+        //THEN
+        assertTrue(MoveLogic.isValidTurn(game, result.getBestTurn()));
+        assertTrue(result.getNodes() <= maxNodes + 1024);
+    }
+
+    /**
+     * Test of search method in finished games, of class Search.
+     *
+     * @param state the game state.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"000000100000000000000000000000000-1", "200010000000000000000000000000001-1"})
+    public void testSearch_GameOver(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+
+        //WHEN
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+
+        //THEN
+        assertEquals(Turn.NONE, result.getBestTurn());
+        assertEquals(-Search.WIN, result.getScore());
+    }
+
+    /**
+     * Test of toTable and fromTable methods, of class Search. A score stored
+     * at one ply and read at another keeps its distance from the stored game
+     * state.
+     *
+     * @param score the score at the stored ply.
+     * @param ply the ply of the stored game state.
+     * @param otherPly the ply of the same game state reached again.
+     * @param expResult the expected score at the other ply.
+     */
+    @ParameterizedTest
+    @CsvSource({"29990,4,8,29986", "-29990,4,8,-29986", "19990,3,7,19986", "-19990,3,7,-19986",
+        "19700,10,2,19708", "150,4,8,150", "-150,4,8,-150"})
+    public void testToTable_FromTable(int score, int ply, int otherPly, int expResult) {
+
+        //WHEN
+        int stored = Search.toTable(score, ply);
+        int result = Search.fromTable(stored, otherPly);
+
+        //THEN
+        assertEquals(score, Search.fromTable(stored, ply));
+        assertEquals(expResult, result);
+    }
+}
@@ -0,0 +1,138 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of Tablebase and TablebaseGenerator classes.
+ *
+ * @author Dawid Cieślik
+ */
+public class TablebaseTest {
+
+    /**
+     * The directory of the tables up to 3 pieces.
+     */
+    @TempDir
+    static Path directory;
+
+    /**
+     * Writes the tables up to 3 pieces.
+     *
+     * @throws IOException if a table cannot be written.
+     */
+    @BeforeAll
+    public static void generate() throws IOException {
+        new TablebaseGenerator(directory, 3).generate(null);
+    }
+
+    /**
+     * Lists the materials of the tables up to 3 pieces.
+     *
+     * @return the materials.
+     */
+    static Iterable<Integer> materials() {
+        return TablebaseGenerator.materials(3);
+    }
+
+    /**
+     * Test of index and decode methods, of class Tablebase.
+     *
+     * @param material the material.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0x1001, 0x0110, 0x2011, 0x1201, 0x0033, 0x2202})
+    public void testIndex_Decode(int material) {
+
+        //GIVEN
+        long size = Tablebase.size(material);
+        int[] pieces = new int[4];
+
+        for (long i = 0; i < size; i += 1 + size / 5000) {
+
+            //WHEN
+            boolean white = Tablebase.decode(material, i, pieces);
+
+            //THEN
+            assertEquals(material, Tablebase.material(pieces[0], pieces[1], pieces[2], pieces[3]));
+            assertEquals(0, pieces[0] & ~Tablebase.WHITE_CHECKER_TILES);
+            assertEquals(i, Tablebase.index(pieces[0], pieces[1], pieces[2], pieces[3], white));
+        }
+    }
+
+    /**
+     * Test of generate method, of class TablebaseGenerator, and of probe
+     * method, of class Tablebase. The value of every position must be the
+     * best value of its moves, including the moves in the middle of a skip
+     * chain.
+     *
+     * @param material the material.
+     */
+    @ParameterizedTest
+    @MethodSource("materials")
+    public void testGenerate_Probe(int material) {
+
+        //GIVEN
+        Tablebase tablebase = new Tablebase(directory);
+        Game game = new Game(null);
+        MoveList moves = new MoveList();
+        int[] pieces = new int[4];
+
+        for (long i = 0; i < Tablebase.size(material); i++) {
+            boolean white = Tablebase.decode(material, i, pieces);
+            if ((pieces[2] & Tablebase.BLACK_CHECKER_LAST_ROW) != 0) {
+                continue;
+            }
+            game.setState((pieces[3] & 0xFFFFFFFFL) | ((long) (pieces[2] | pieces[1]) << 32),
+                    ((pieces[0] | pieces[1]) & 0xFFFFFFFFL) | (white ? 1L << 32 : 0));
+
+            //WHEN
+            int value = tablebase.probe(game);
+
+            //THEN
+            assertNotEquals(Tablebase.UNKNOWN, value);
+            assertEquals(expected(tablebase, game, moves), value);
+        }
+    }
+
+    /**
+     * Computes the value of a game state from the values after each of its
+     * moves.
+     *
+     * @param tablebase the tablebase.
+     * @param game the game.
+     * @param moves the list to generate the moves into.
+     * @return the best value of the moves.
+     */
+    private static int expected(Tablebase tablebase, Game game, MoveList moves) {
+        moves.clear();
+        BitboardMoveGenerator.generateLegal(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), moves);
+        if (moves.isEmpty()) {
+            return 1;
+        }
+
+        int[] list = new int[moves.size()];
+        for (int m = 0; m < list.length; m++) {
+            list[m] = moves.get(m);
+        }
+        boolean white = game.isP1Turn();
+        int best = 0;
+        for (int m = 0; m < list.length; m++) {
+            game.makeMove(list[m]);
+            int value = tablebase.probe(game);
+            if (game.isP1Turn() != white) {
+                value = Tablebase.negate(value);
+            }
+            game.unmakeMove();
+            best = m == 0 ? value : Tablebase.better(best, value);
+        }
+        return best;
+    }
+}
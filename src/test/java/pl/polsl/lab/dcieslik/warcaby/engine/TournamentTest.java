@@ -0,0 +1,195 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of Tournament, Bot and MatchResult classes.
+ *
+ * @author Dawid Cieślik
+ */
+public class TournamentTest {
+
+    /**
+     * The directory of the game files.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Test of run method, of class Tournament. Every game written is played
+     * again from its turns and must reach its final state, and a run on one
+     * thread plays the same games again.
+     *
+     * @param games the number of games of each pairing.
+     * @param threads the number of threads.
+     * @throws IOException if the games cannot be written.
+     */
+    @ParameterizedTest
+    @CsvSource({"4,1", "5,3"})
+    public void testRun(int games, int threads) throws IOException {
+
+        //GIVEN
+        Tournament tournament = new Tournament(2);
+        tournament.setSeed(7);
+        tournament.addBot("search", seed -> Bot.search(SearchLimits.depth(2), 1));
+        tournament.addBot("random", Bot::random);
+        tournament.addBot("mcts", seed -> Bot.monteCarlo(20));
+        Path file = directory.resolve("games.pdn");
+
+        //WHEN
+        List<MatchResult> results = tournament.run(file, games, threads);
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        String[] records = text.split("\n\n");
+        Path again = directory.resolve("again.pdn");
+        tournament.run(again, games, threads);
+
+        //THEN
+        int perPairing = (games + 1) & ~1;
+        assertEquals(3, results.size());
+        assertEquals(3 * perPairing, tournament.getGames());
+        assertEquals(3 * perPairing, records.length);
+        for (MatchResult result : results) {
+            assertEquals(perPairing, result.getGames());
+        }
+        int searchWhite = 0;
+        for (String record : records) {
+            Game game = new Game();
+            String finalState = null, result = null;
+            for (String line : record.split("\n")) {
+                if (line.startsWith("[FinalState")) {
+                    finalState = line.split("\"")[1];
+                } else if (line.startsWith("[Result")) {
+                    result = line.split("\"")[1];
+                } else if (line.startsWith("[White \"search\"]")) {
+                    searchWhite++;
+                } else if (line.startsWith("[FEN")) {
+                    assertEquals(Tournament.fen(game), line.split("\"")[1]);
+                } else if (!line.startsWith("[")) {
+                    for (String token : line.split(" ")) {
+                        if (!token.endsWith(".") && !token.equals(result)) {
+                            game.makeTurn(find(game, token));
+                        }
+                    }
+                }
+            }
+            assertEquals(finalState, game.getGameState());
+            assertEquals(game.isGameOver() ? (game.isP1Turn() ? "0-2" : "2-0") : "1-1", result);
+        }
+        assertEquals(perPairing, searchWhite);
+        if (threads == 1) {
+            assertEquals(text, new String(Files.readAllBytes(again), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Finds the legal turn of a game state with a PDN form.
+     *
+     * @param game the game.
+     * @param pdn the PDN form of the turn.
+     * @return the packed turn.
+     */
+    private static long find(Game game, String pdn) {
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+        for (int i = 0; i < turns.size(); i++) {
+            if (Tournament.toPdn(turns.get(i)).equals(pdn)) {
+                return turns.get(i);
+            }
+        }
+        fail("No turn " + pdn);
+        return Turn.NONE;
+    }
+
+    /**
+     * Test of random and monteCarlo methods, of class Bot, and of botSeed
+     * method, of class Tournament. Random bots play the same turns with the
+     * same seed and different turns with the seeds of different threads, and
+     * Monte Carlo bots start no threads.
+     *
+     * @param seed the seed of the tournament.
+     */
+    @ParameterizedTest
+    @ValueSource(longs = {0, 7})
+    public void testRandom_MonteCarlo(long seed) {
+
+        //GIVEN
+        Tournament tournament = new Tournament(0);
+        tournament.setSeed(seed);
+        long firstSeed = tournament.botSeed(1, 0), secondSeed = tournament.botSeed(1, 1);
+        int threads = Thread.activeCount();
+
+        //WHEN
+        String first = randomTurns(Bot.random(firstSeed));
+        String same = randomTurns(Bot.random(firstSeed));
+        String second = randomTurns(Bot.random(secondSeed));
+        for (int i = 0; i < 4; i++) {
+            Bot.monteCarlo(10).play(new Game());
+        }
+
+        //THEN
+        assertEquals(first, same);
+        assertNotEquals(first, second);
+        assertNotEquals(firstSeed, tournament.botSeed(0, 0));
+        assertEquals(firstSeed, tournament.botSeed(1, 0));
+        assertTrue(Thread.activeCount() <= threads);
+    }
+
+    /**
+     * Plays the first turns of a game by a bot against itself.
+     *
+     * @param bot the bot.
+     * @return the turns in PDN.
+     */
+    private static String randomTurns(Bot bot) {
+        StringBuilder turns = new StringBuilder();
+        Game game = new Game();
+        for (int ply = 0; ply < 20 && !game.isGameOver(); ply++) {
+            long turn = bot.play(game);
+            turns.append(Tournament.toPdn(turn)).append(' ');
+            game.makeTurn(turn);
+        }
+        return turns.toString();
+    }
+
+    /**
+     * Test of getElo method, of class MatchResult.
+     *
+     * @param wins the number of wins.
+     * @param draws the number of draws.
+     * @param losses the number of losses.
+     * @param elo the expected Elo difference.
+     */
+    @ParameterizedTest
+    @CsvSource({"10,0,10,0", "75,0,25,191", "1,2,1,0", "25,0,75,-191"})
+    public void testGetElo(int wins, int draws, int losses, int elo) {
+
+        //GIVEN
+        MatchResult result = new MatchResult("a", "b");
+
+        //WHEN
+        for (int i = 0; i < wins; i++) {
+            result.add(2);
+        }
+        for (int i = 0; i < draws; i++) {
+            result.add(1);
+        }
+        for (int i = 0; i < losses; i++) {
+            result.add(0);
+        }
+
+        //THEN
+        assertEquals(wins + draws + losses, result.getGames());
+        assertEquals(elo, result.getElo(), 0.5);
+        assertTrue(result.getEloMargin() > 0);
+    }
+}
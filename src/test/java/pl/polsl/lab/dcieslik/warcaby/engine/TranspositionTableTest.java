@@ -0,0 +1,109 @@
+package pl.polsl.lab.dcieslik.warcaby.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import pl.polsl.lab.dcieslik.warcaby.model.*;
+
+/**
+ * Class to test methods of TranspositionTable class.
+ *
+ * @author Dawid Cieślik
+ */
+public class TranspositionTableTest {
+
+    /**
+     * The table under test.
+     */
+    private final TranspositionTable tt = new TranspositionTable(1);
+
+    /**
+     * Test of store and probe methods, of class TranspositionTable.
+     *
+     * @param key the key.
+     * @param score the score.
+     * @param depth the depth.
+     * @param bound the bound.
+     */
+    @ParameterizedTest
+    @CsvSource({"1234567890123,-29990,7,3", "-1,0,0,1", "42,31000,255,2", "9223372036854775807,-5,12,1"})
+    public void testStore_Probe(long key, int score, int depth, int bound) {
+
+        //GIVEN
+        int move = TranspositionTable.encodeMove(Turn.of(22, 6, (1 << 17) | (1 << 10), true));
+
+        //WHEN
+        tt.store(key, move, score, depth, bound);
+        long result = tt.probe(key);
+
+        //THEN
+        assertEquals(score, TranspositionTable.getScore(result));
+        assertEquals(depth, TranspositionTable.getDepth(result));
+        assertEquals(bound, TranspositionTable.getBound(result));
+        assertEquals(move, TranspositionTable.getMove(result));
+        assertEquals(0, tt.probe(key ^ (1L << 40)));
+        assertEquals(2, tt.getProbes());
+        assertEquals(1, tt.getHits());
+    }
+
+    /**
+     * Test of store method with replacement, of class TranspositionTable.
+     *
+     * @param newSearch true to store the third entry in a new search.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testStore_Replacement(boolean newSearch) {
+
+        //GIVEN
+        long step = tt.getCapacity();
+        long deep = 10, shallow = 10 + step, other = 10 + 2 * step;
+        tt.store(deep, 0, 1, 9, TranspositionTable.EXACT);
+        tt.store(shallow, 0, 2, 3, TranspositionTable.EXACT);
+        if (newSearch) {
+            tt.newSearch();
+        }
+
+        //WHEN
+        tt.store(other, 0, 3, 1, TranspositionTable.EXACT);
+
+        //THEN
+        assertEquals(newSearch, tt.probe(other) != 0);
+        assertEquals(!newSearch, tt.probe(shallow) != 0);
+        assertNotEquals(0, tt.probe(deep));
+        assertEquals(newSearch ? 1 : 0, tt.getCollisions());
+    }
+
+    /**
+     * Test of encodeMove method, of class TranspositionTable.
+     *
+     * @param state the game state.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"222222222222000000001111111111111-1", "000000000200000002000010000000001-1",
+        "000000000202020000220000000300001-1", "000000000000022200000220000304000-1"})
+    public void testEncodeMove(String state) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        TurnList turns = new TurnList();
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+
+        //WHEN
+        int[] result = new int[turns.size()];
+        for (int i = 0; i < turns.size(); i++) {
+            result[i] = TranspositionTable.encodeMove(turns.get(i));
+        }
+
+        //THEN
+        for (int i = 0; i < result.length; i++) {
+            assertNotEquals(0, result[i]);
+            assertEquals(0, result[i] >>> 29);
+            for (int j = 0; j < i; j++) {
+                assertNotEquals(result[j], result[i]);
+            }
+        }
+    }
+}
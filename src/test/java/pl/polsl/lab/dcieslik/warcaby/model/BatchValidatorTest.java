@@ -0,0 +1,68 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Class to test methods of BatchValidator class.
+ *
+ * @author Dawid Cieślik
+ */
+public class BatchValidatorTest {
+
+    /**
+     * The game states the moves are validated in.
+     */
+    private static final String[] STATES = {"222222222222000000001111111111111-1",
+        "111111111011000000202210222222221-1", "1111111110110100022022002222222205",
+        "000000000200000002000010000000001-1", "200010000000000000000000000003000-1"};
+
+    /**
+     * Test of validate method, of class BatchValidator.
+     *
+     * @param threads the number of threads of the pool, or 0 to validate on
+     * the calling thread.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3})
+    public void testValidate(int threads) {
+
+        //GIVEN
+        int n = STATES.length * 4;
+        long[] states = new long[2 * n];
+        int[] first = new int[n + 1];
+        int[] moves = new int[n * 1024];
+        Game game = new Game(null);
+        for (int p = 0; p < n; p++) {
+            game.setGameState(STATES[p % STATES.length]);
+            states[2 * p] = game.getStateHigh();
+            states[2 * p + 1] = game.getStateLow();
+            first[p + 1] = first[p] + 1024;
+            for (int i = 0; i < 1024; i++) {
+                moves[first[p] + i] = Move.between(i / 32, i % 32);
+            }
+        }
+
+        //WHEN
+        long[] result;
+        if (threads == 0) {
+            result = BatchValidator.validate(states, first, moves);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            result = BatchValidator.validate(states, first, moves, pool);
+            pool.shutdown();
+        }
+
+        //THEN
+        for (int p = 0; p < n; p++) {
+            game.setGameState(STATES[p % STATES.length]);
+            for (int i = first[p]; i < first[p + 1]; i++) {
+                int start = Move.getStart(moves[i]), end = Move.getEnd(moves[i]);
+                assertEquals(MoveLogic.isValidMove(game, start, end), BatchValidator.isValid(result, i),
+                        STATES[p % STATES.length] + " " + start + "-" + end);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package pl.polsl.lab.dcieslik.warcaby.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Class to test methods of BitboardMoveGenerator class.
+ *
+ * @author Dawid Cieślik
+ */
+public class BitboardMoveGeneratorTest {
+
+    /**
+     * The current state of the checker board.
+     */
+    private final Board board = new Board();
+
+    /**
+     * The buffer the generated moves are written to.
+     */
+    private final MoveList moves = new MoveList();
+
+    /**
+     * Test of shift method, of class BitboardMoveGenerator.
+     *
+     * @param index the index to shift.
+     * @param dir the direction of the step.
+     * @param expIndex the expected index after the step, or -1.
+     */
+    @ParameterizedTest
+    @CsvSource({"9,0,14", "9,1,13", "9,2,6", "9,3,5", "20,1,-1", "20,3,-1", "3,0,-1", "28,0,-1", "0,3,-1"})
+    public void testShift(int index, int dir, int expIndex) {
+
+        //GIVEN
+        int expResult = expIndex < 0 ? 0 : 1 << expIndex;
+
+        //WHEN
+        int result = BitboardMoveGenerator.shift(1 << index, dir);
+
+        //THEN
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of generateMoves method, of class BitboardMoveGenerator.
+     *
+     * @param white true for the white side.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testGenerateMoves_Board_boolean(boolean white) {
+
+        //GIVEN
+        int expResult = 7;
+
+        //WHEN
+        int result = BitboardMoveGenerator.generateMoves(board, white, moves);
+
+        //THEN
+        assertEquals(expResult, result);
+        assertEquals(expResult, moves.size());
+    }
+
+    /**
+     * Test of generateMoves method, of class BitboardMoveGenerator.
+     *
+     * @param startIndex the index to look for moves around.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {20, 22, 10, 26})
+    public void testGenerateMoves_Board_int(int startIndex) {
+
+        //GIVEN
+        String expResult = "";
+        switch (startIndex) {
+            case 20:
+                expResult = "20-16";
+                break;
+            case 22:
+                expResult = "22-18 22-17";
+                break;
+            case 10:
+                expResult = "10-15 10-14";
+                break;
+            default:
+                break;
+        }
+
+        //WHEN
+        BitboardMoveGenerator.generateMoves(board, startIndex, moves);
+
+        //THEN
+        assertEquals(expResult, toString(moves));
+    }
+
+    /**
+     * Test of generateSkips and getSkippers methods, of class
+     * BitboardMoveGenerator.
+     *
+     * @param white true for the white side.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testGenerateSkips(boolean white) {
+
+        //GIVEN
+        if (white) {
+            board.set(17, Board.IDs.BLACK_CHECKER.getID());
+        } else {
+            board.set(13, Board.IDs.WHITE_CHECKER.getID());
+        }
+        String expResult = white ? "21x14 22x13" : "8x17 9x16";
+
+        //WHEN
+        BitboardMoveGenerator.generateSkips(board, white, moves);
+
+        //THEN
+        assertEquals(expResult, toString(moves));
+        assertNotEquals(0, BitboardMoveGenerator.getSkippers(board, white));
+    }
+
+    /**
+     * Test of generateLegal method, of class BitboardMoveGenerator.
+     *
+     * @param skipIndex the index of the last skip this turn.
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {-1, 21, 22, 23})
+    public void testGenerateLegal(int skipIndex) {
+
+        //GIVEN
+        board.set(17, Board.IDs.BLACK_CHECKER.getID());
+        String expResult = "";
+        if (skipIndex == -1) {
+            expResult = "21x14 22x13";
+        } else if (skipIndex == 21) {
+            expResult = "21x14";
+        } else if (skipIndex == 22) {
+            expResult = "22x13";
+        }
+
+        //WHEN
+        BitboardMoveGenerator.generateLegal(board, true, skipIndex, moves);
+
+        //THEN
+        assertEquals(expResult, toString(moves));
+    }
+
+    /**
+     * Test of generateTurns method, of class BitboardMoveGenerator.
+     *
+     * @param state the game state as a string of data.
+     * @param expResult the expected turns with their skipped checkers.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,20-16 21-17 22-18 23-19 21-16 22-17 23-18",
+        "000000000200000002000010000000001-1,22x6[9 17]",
+        "000002201000000000000020000000001-1,8x10[5 6]*",
+        "000000000200000002000010000000000-1,17x26[22]"})
+    public void testGenerateTurns(String state, String expResult) {
+
+        //GIVEN
+        Game game = new Game(null);
+        game.setGameState(state);
+        TurnList turns = new TurnList();
+
+        //WHEN
+        BitboardMoveGenerator.generateTurns(game.getExactBoard(), game.isP1Turn(), game.getSkipIndex(), turns);
+
+        //THEN
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < turns.size(); i++) {
+            long turn = turns.get(i);
+            result.append(i == 0 ? "" : " ").append(Turn.toString(turn));
+            if (Turn.getCaptured(turn) != 0) {
+                StringBuilder captured = new StringBuilder();
+                Board.forEachIndex(Turn.getCaptured(turn), c -> captured.append(captured.length() == 0 ? "" : " ").append(c));
+                result.append("[").append(captured).append("]");
+            }
+            result.append(Turn.isPromoted(turn) ? "*" : "");
+        }
+        assertEquals(expResult, result.toString());
+    }
+
+    /**
+     * Joins the packed moves of a list into a string.
+     *
+     * @param list the list of packed moves.
+     * @return the moves separated with spaces.
+     */
+    private static String toString(MoveList list) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < list.size(); i++) {
+            sb.append(i == 0 ? "" : " ").append(Move.toString(list.get(i)));
+        }
+        return sb.toString();
+    }
+}
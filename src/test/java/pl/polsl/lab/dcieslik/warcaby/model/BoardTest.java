@@ -486,4 +486,115 @@ public class BoardTest {
         assertEquals(expResult, result);
     }
 
+    /**
+     * Test of getPieceCount and getKingCount methods, of class Board.
+     *
+     * @param index the index to place a king on.
+     * @param id the ID of the king.
+     */
+    @ParameterizedTest
+    @CsvSource({"16,3", "17,4", "0,3", "31,4"})
+    public void testGetPieceCount(int index, int id) {
+
+        //GIVEN
+        boolean isWhite = id == Board.IDs.WHITE_KING.getID();
+        int expResult = 13;
+
+        //WHEN
+        board.set(index, id);
+
+        //THEN
+        assertEquals(expResult, board.getPieceCount(isWhite));
+        assertEquals(1, board.getKingCount(isWhite));
+        assertEquals(0, board.getKingCount(!isWhite));
+    }
+
+    /**
+     * Test of forEachPiece method, of class Board.
+     *
+     * @param isWhite true for the white side.
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testForEachPiece(boolean isWhite) {
+
+        //GIVEN
+        List<Integer> expResult = new ArrayList();
+        for (int i = 0; i < 12; i++) {
+            expResult.add(isWhite ? 20 + i : i);
+        }
+
+        //WHEN
+        List<Integer> result = new ArrayList();
+        board.forEachPiece(isWhite, result::add);
+
+        //THEN
+        assertEquals(expResult, result);
+    }
+
+    /**
+     * Test of neighbour, jump, jumped, middleIndex and direction methods, of
+     * class Board.
+     *
+     * @param index the start index.
+     * @param dir the direction.
+     * @param neighbour the expected neighbour.
+     * @param jump the expected jump target.
+     */
+    @ParameterizedTest
+    @CsvSource({"9,0,14,18", "21,3,16,12", "4,1,-1,-1", "31,0,-1,-1", "3,2,-1,-1", "7,1,10,14"})
+    public void testNeighbour_Jump(int index, int dir, int neighbour, int jump) {
+
+        //GIVEN
+        int expJumped = jump < 0 ? -1 : neighbour;
+
+        //WHEN
+        int resultNeighbour = Board.neighbour(index, dir);
+        int resultJump = Board.jump(index, dir);
+        int resultJumped = Board.jumped(index, dir);
+
+        //THEN
+        assertEquals(neighbour, resultNeighbour);
+        assertEquals(jump, resultJump);
+        assertEquals(expJumped, resultJumped);
+        if (neighbour >= 0) {
+            assertEquals(dir, Board.direction(index, neighbour));
+            assertEquals(-1, Board.middleIndex(index, neighbour));
+        }
+        if (jump >= 0) {
+            assertEquals(dir, Board.direction(index, jump));
+            assertEquals(neighbour, Board.middleIndex(index, jump));
+        }
+    }
+
+    /**
+     * Test of hasAnyCapture and getCapturers methods, of class Board.
+     *
+     * @param whiteIndex the index of the white checker.
+     * @param blackIndex the index of the black checker.
+     * @param expResult the expected result for both sides.
+     */
+    @ParameterizedTest
+    @CsvSource({"17,13,true", "17,12,false", "22,13,false", "14,9,true"})
+    public void testHasAnyCapture(int whiteIndex, int blackIndex, boolean expResult) {
+
+        //GIVEN
+        for (int i = 0; i < 32; i++) {
+            board.set(i, Board.IDs.EMPTY.getID());
+        }
+        board.set(whiteIndex, Board.IDs.WHITE_CHECKER.getID());
+        board.set(blackIndex, Board.IDs.BLACK_CHECKER.getID());
+
+        //WHEN
+        boolean resultWhite = board.hasAnyCapture(true);
+        boolean resultBlack = board.hasAnyCapture(false);
+
+        //THEN
+        assertEquals(expResult, resultWhite);
+        assertEquals(expResult, resultBlack);
+        assertEquals(expResult ? 1 << whiteIndex : 0, board.getCapturers(true));
+        board.set(blackIndex, Board.IDs.EMPTY.getID());
+        assertFalse(board.hasAnyCapture(true));
+    }
+
 }
@@ -1,6 +1,7 @@
 package pl.polsl.lab.dcieslik.warcaby.model;
 
 import java.awt.Point;
+import java.nio.ByteBuffer;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -122,4 +123,191 @@ public class GameTest {
         assertNotEquals(expResult, result);
     }
 
+    /**
+     * Test of getKey method, of class Game.
+     *
+     * @param moves the moves played from the initial state, as start and end
+     * index pairs.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"20,16,8,12,23,19,11,15", "23,19,11,15,20,16,8,12", "23,19,8,12,20,16,11,15"})
+    public void testGetKey(String moves) {
+
+        //GIVEN
+        Game expected = new Game(boardWindow);
+        expected.setGameState("222222220220200210010110111111111-1");
+        long expResult = expected.getKey();
+
+        //WHEN
+        String[] m = moves.split(",");
+        for (int i = 0; i < m.length; i += 2) {
+            game.move(Integer.parseInt(m[i]), Integer.parseInt(m[i + 1]));
+        }
+        long result = game.getKey();
+
+        //THEN
+        assertEquals(expected.getGameState(), game.getGameState());
+        assertEquals(expResult, result);
+        assertEquals(expResult, game.copy().getKey());
+    }
+
+    /**
+     * Test of makeMove and unmakeMove methods, of class Game.
+     *
+     * @param state the game state as a string of data.
+     * @param startIndex the start index of the move.
+     * @param endIndex the end index of the move.
+     * @param expState the expected game state after the move.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,20,16,222222222222000010000111111111110-1",
+        "000000000000000002000010000000001-1,22,13,000000000000010000000000000000000-1",
+        "000000000200000002000010000000001-1,22,13,00000000020001000000000000000000113",
+        "020001000000000000000000000000001-1,5,0,320000000000000000000000000000000-1",
+        "000000000100000000000000200000000-1,24,28,000000000100000000000000000040001-1"})
+    public void testMakeMove_UnmakeMove(String state, int startIndex, int endIndex, String expState) {
+
+        //GIVEN
+        game.setGameState(state);
+        long expKey = game.getKey();
+
+        //WHEN
+        game.makeMove(Move.between(startIndex, endIndex));
+        String result = game.getGameState();
+        game.unmakeMove();
+
+        //THEN
+        assertEquals(expState, result);
+        assertEquals(state, game.getGameState());
+        assertEquals(expKey, game.getKey());
+        assertEquals(0, game.getUndoDepth());
+    }
+
+    /**
+     * Test of unmakeMove method after restart and setGameState, of class
+     * Game.
+     *
+     * @param state the game state set after the move, or an empty string to
+     * restart.
+     * @param startIndex the start index of the move.
+     * @param endIndex the end index of the move.
+     */
+    @ParameterizedTest
+    @CsvSource({"'',20,16", "000000000200000002000010000000001-1,20,16",
+        "000000000000000002000010000000001-1,22,18"})
+    public void testUnmakeMove_Restart(String state, int startIndex, int endIndex) {
+
+        //GIVEN
+        game.setGameState("222222222222000000001111111111111-1");
+        game.makeMove(Move.between(startIndex, endIndex));
+
+        //WHEN
+        if (state.isEmpty()) {
+            game.restart();
+        } else {
+            game.setGameState(state);
+        }
+        String expState = game.getGameState();
+        boolean result = game.unmakeMove();
+
+        //THEN
+        assertFalse(result);
+        assertEquals(0, game.getUndoDepth());
+        assertEquals(expState, game.getGameState());
+    }
+
+    /**
+     * Test of playTurn and makeTurn methods, of class Game.
+     *
+     * @param state the game state as a string of data.
+     * @param startIndex the start index of the turn.
+     * @param endIndex the end index of the turn.
+     * @param captured the mask of the skipped checkers.
+     * @param promoted true if the checker becomes a king.
+     * @param expState the expected game state after the turn.
+     */
+    @ParameterizedTest
+    @CsvSource({"000000000200000002000010000000001-1,22,6,131584,false,000000100000000000000000000000000-1",
+        "000002201000000000000020000000001-1,8,10,96,true,000000000030000000000020000000000-1",
+        "000002201000000000000020000000001-1,8,10,96,false,000002201000000000000020000000001-1",
+        "000000000200000002000010000000001-1,22,13,131072,false,000000000200000002000010000000001-1"})
+    public void testPlayTurn(String state, int startIndex, int endIndex, int captured, boolean promoted,
+            String expState) {
+
+        //GIVEN
+        long turn = Turn.of(startIndex, endIndex, captured, promoted);
+        game.setGameState(state);
+        Game copy = game.copy();
+        boolean expResult = !state.equals(expState);
+
+        //WHEN
+        boolean result = game.playTurn(turn);
+        if (expResult) {
+            copy.makeTurn(turn);
+        }
+
+        //THEN
+        assertEquals(expResult, result);
+        assertEquals(expState, game.getGameState());
+        assertEquals(expState, copy.getGameState());
+        copy.unmakeMove();
+        assertEquals(state, copy.getGameState());
+    }
+
+    /**
+     * Test of isGameOver method, of class Game.
+     *
+     * @param state the game state.
+     * @param white the expected number of white pieces.
+     * @param black the expected number of black pieces.
+     * @param expResult the expected result.
+     */
+    @ParameterizedTest
+    @CsvSource({"222222222222000000001111111111111-1,12,12,false",
+        "000000100000000000000000000000000-1,1,0,true",
+        "200010000000000000000000000000001-1,1,1,true",
+        "200010000000000000000000000000000-1,1,1,false"})
+    public void testIsGameOver(String state, int white, int black, boolean expResult) {
+
+        //GIVEN
+        game.setGameState(state);
+
+        //WHEN
+        boolean result = game.isGameOver();
+
+        //THEN
+        assertEquals(expResult, result);
+        assertEquals(white, game.getPieceCount(true));
+        assertEquals(black, game.getPieceCount(false));
+        assertEquals(expResult, game.copy().isGameOver());
+    }
+
+    /**
+     * Test of writeTo and readFrom methods, of class Game.
+     *
+     * @param state the game state.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"222222222222000000001111111111111-1", "1111111110110100022022002222222205",
+        "000000100000000000000000000000040-1", "2000100000000000000000000000030001"})
+    public void testWriteTo_ReadFrom(String state) {
+
+        //GIVEN
+        game.setGameState(state);
+        ByteBuffer buffer = ByteBuffer.allocate(Game.STATE_BYTES);
+        Game result = new Game(null);
+
+        //WHEN
+        game.writeTo(buffer);
+        buffer.flip();
+        result.readFrom(buffer);
+
+        //THEN
+        assertEquals(Game.STATE_BYTES, buffer.position());
+        assertEquals(state, result.getGameState());
+        assertEquals(game.getKey(), result.getKey());
+        assertEquals(game.isGameOver(), result.isGameOver());
+        assertTrue(result.isState(game.getStateHigh(), game.getStateLow()));
+    }
+
 }